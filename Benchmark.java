@@ -0,0 +1,990 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark.java
+ * Small timing harness for the data structures in MainApp.
+ *
+ * Scenarios:
+ * - load [rows]   : insert rows with sorted, reverse-sorted and random IPK order
+ * - import [rows] : batchUploadFromFile (per row) vs bulkLoadFromFile on a generated file,
+ *                   bulk load at 1, 2, 4 ... available cores parse threads
+ * - parse [rows]  : parse-only time and bytes allocated per row, Files.lines + split
+ *                   vs MappedCsvReader
+ * - snapshot [rows] : save / load a binary snapshot vs re-importing the text file
+ * - wal [rows]      : durable appends from 1, 4 and 16 threads, fsyncs shared by group commit
+ * - monotonic [rows] : load rows (default 1M) monotonically increasing IPKs under the default
+ *                     thread stack, check order, balance and order statistics, then
+ *                     delete them all in order; exits 1 on failure
+ * - stress [rows]   : concurrent writers + readers on one StudentManager, in both index
+ *                     modes; exits 1 on a lost, duplicated or torn update
+ * - index [rows]    : mixed insert + lookup throughput, locked BST vs concurrent skip list,
+ *                     at 1, 4, 16 and 64 threads
+ * - heap [rows]     : retained bytes per student, HashMap<String, Student> vs NimTable,
+ *                     and for a whole StudentManager
+ * - columnar [rows] : StudentManager vs ColumnarStudentStore: heap per student, ordered
+ *                     listing, average IPK and count per major
+ * - courses [rows]  : enrol rows / 100 students in 500 courses each through
+ *                     addCourseToStudent
+ * - courseindex [rows] : "students in course A and B" through the course index vs a
+ *                     scan of every student
+ * - major [rows]    : top 10 and count of one major through the per-major index vs
+ *                     listAllOrderedByIpk + filter
+ * - rank [rows]     : top 100, rank of a NIM, median and P90 through the order-statistic
+ *                     BST vs sorting a listAllOrderedByIpk copy
+ * - stream [rows]   : full ordered walk and first student with IPK >= 1.00, list copy vs
+ *                     lazy stream; time and bytes allocated
+ * - visit [rows]    : every exact IPK and one course through the copying searches vs the
+ *                     forEach* visitors; time and bytes allocated
+ * - batch [rows]    : insert and delete rows in batches of 1000, insertStudents /
+ *                     deleteByNims vs a loop of single calls, in both index modes,
+ *                     then with a write-ahead log attached (rows / 20)
+ * - offheap [rows]  : StudentManager vs OffHeapStudentStore: heap and off-heap bytes per
+ *                     student, GC time while loading, random NIM lookups
+ *
+ * Compile: javac Benchmark.java
+ * Run    : java Benchmark load 200000
+ */
+public class Benchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        String scenario = args.length > 0 ? args[0] : "load";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        switch (scenario) {
+            case "load":
+                benchLoad(rows);
+                break;
+            case "import":
+                benchImport(rows);
+                break;
+            case "parse":
+                benchParse(rows);
+                break;
+            case "snapshot":
+                benchSnapshot(rows);
+                break;
+            case "wal":
+                benchWal(rows);
+                break;
+            case "monotonic":
+                if (!monotonic(args.length > 1 ? rows : 1_000_000)) System.exit(1);
+                break;
+            case "stress":
+                boolean ok = stress(rows, MainApp.StudentManager.IndexMode.LOCKED_BST);
+                ok &= stress(rows, MainApp.StudentManager.IndexMode.CONCURRENT_SKIP_LIST);
+                if (!ok) System.exit(1);
+                break;
+            case "index":
+                benchIndex(rows);
+                break;
+            case "heap":
+                benchHeap(rows);
+                break;
+            case "columnar":
+                benchColumnar(rows);
+                break;
+            case "courses":
+                benchCourses(rows);
+                break;
+            case "courseindex":
+                benchCourseIndex(rows);
+                break;
+            case "major":
+                benchMajor(rows);
+                break;
+            case "rank":
+                benchRank(rows);
+                break;
+            case "stream":
+                benchStream(rows);
+                break;
+            case "visit":
+                benchVisit(rows);
+                break;
+            case "batch":
+                benchBatch(rows);
+                break;
+            case "offheap":
+                benchOffHeap(rows);
+                break;
+            default:
+                System.out.println("Unknown scenario: " + scenario);
+        }
+    }
+
+    // ---- Utility: same output format as MainApp.printElapsed ----
+    private static void printElapsed(String label, long nanos)
+    {
+        System.out.printf(">> %-32s %10.3f ms%n", label, nanos / 1_000_000.0);
+    }
+
+    // IPKs 0.00..4.00 (hundredths) spread evenly over the rows, non-decreasing
+    private static int[] ipkSeries(int rows)
+    {
+        int[] ipks = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ipks[i] = (int) ((long) (MainApp.MAX_IPK + 1) * i / rows);
+        }
+        return ipks;
+    }
+
+    private static int[] shuffledIpks(int rows, long seed)
+    {
+        int[] ipks = ipkSeries(rows);
+        shuffle(ipks, seed);
+        return ipks;
+    }
+
+    // IPK i % 401 for row i: every value in turn
+    private static int[] cyclicIpks(int rows)
+    {
+        int[] ipks = new int[rows];
+        for (int i = 0; i < rows; i++) ipks[i] = i % (MainApp.MAX_IPK + 1);
+        return ipks;
+    }
+
+    // ---- shared fixture: row i is NIM 100000 + i, name "S" + i, IPK ipks[i] ----
+    private static String nim(int i)
+    {
+        return String.valueOf(100_000 + i);
+    }
+
+    // insert one student per IPK, majors taken in turn ("Informatika" if none given)
+    private static <S extends MainApp.StudentStore> S load(S store, int[] ipks, String... majors)
+    {
+        for (int i = 0; i < ipks.length; i++) {
+            String major = majors.length == 0 ? "Informatika" : majors[i % majors.length];
+            store.insertStudentHundredths(nim(i), "S" + i, major, ipks[i]);
+        }
+        return store;
+    }
+
+    // ---- timing: every scenario runs ROUNDS rounds so the JIT has warmed up by the last one ----
+    private static final int ROUNDS = 3;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+
+    // run one phase, print its time and return its result
+    private static <T> T timed(String label, Supplier<T> phase)
+    {
+        long t0 = System.nanoTime();
+        T result = phase.get();
+        printElapsed(label, System.nanoTime() - t0);
+        return result;
+    }
+
+    private static void timed(String label, Runnable phase)
+    {
+        timed(label, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    // like timed(), and also print the bytes this thread allocated during the phase
+    private static <T> T timedAllocating(String label, Supplier<T> phase)
+    {
+        long self = Thread.currentThread().getId();
+        long a0 = THREADS.getThreadAllocatedBytes(self);
+        long t0 = System.nanoTime();
+        T result = phase.get();
+        long nanos = System.nanoTime() - t0;
+        printElapsed(label + " (" + (THREADS.getThreadAllocatedBytes(self) - a0) / 1024 + " KB)", nanos);
+        return result;
+    }
+
+    private static void timedAllocating(String label, Runnable phase)
+    {
+        timedAllocating(label, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    // ---- load: sorted / reverse-sorted / random insert order ----
+    private static void benchLoad(int rows)
+    {
+        int[] sorted = ipkSeries(rows);
+        int[] reversed = new int[rows];
+        for (int i = 0; i < rows; i++) reversed[i] = sorted[rows - 1 - i];
+        int[] shuffled = sorted.clone();
+        Random rnd = new Random(42);
+        for (int i = rows - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int tmp = shuffled[i]; shuffled[i] = shuffled[j]; shuffled[j] = tmp;
+        }
+
+        System.out.println("=== load: " + rows + " rows ===");
+        // warm-up so the first measured run is not paying for JIT
+        loadInto(new MainApp.StudentManager(), new MainApp.BST(), shuffled);
+
+        loadCase("sorted", sorted);
+        loadCase("reverse-sorted", reversed);
+        loadCase("random", shuffled);
+    }
+
+    private static void loadCase(String label, int[] ipks)
+    {
+        MainApp.StudentManager mgr = new MainApp.StudentManager();
+        MainApp.BST index = new MainApp.BST();
+        long nanos = loadInto(mgr, index, ipks);
+        printElapsed(label + " (height " + index.height() + ")", nanos);
+    }
+
+    private static long loadInto(MainApp.StudentManager mgr, MainApp.BST index, int[] ipks)
+    {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ipks.length; i++) {
+            mgr.insertStudentHundredths(String.valueOf(i), "S" + i, "Informatika", ipks[i]);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ipks.length; i++) {
+            index.insert(new MainApp.Student(String.valueOf(i), "S" + i, "Informatika", ipks[i]));
+        }
+        return t1 - t0;
+    }
+
+    // ---- import: per-row batch upload vs bulk load ----
+    private static void benchImport(int rows) throws IOException
+    {
+        Path file = writeDataFile(rows);
+        try {
+            System.out.println("=== import: " + rows + " rows (" + Files.size(file) / 1024 + " KB) ===");
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int round = 0; round < 3; round++) {
+                printElapsed("round " + round + " batchUploadFromFile", timeImport(file, 0));
+                for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                    printElapsed("round " + round + " bulkLoad x" + threads, timeImport(file, threads));
+                    if (threads == cores) break;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // parallelism 0 = per-row batchUploadFromFile
+    private static long timeImport(Path file, int parallelism)
+    {
+        MainApp.StudentManager mgr = new MainApp.StudentManager();
+        MainApp.ImportResult result = parallelism > 0
+                ? mgr.bulkLoadFromFile(file.toString(), parallelism, MainApp.ImportResult.DEFAULT_MAX_SAMPLES)
+                : mgr.batchUploadFromFile(file.toString());
+        return result.elapsedNanos;
+    }
+
+    // data.txt-shaped file, IPK ascending like the registrar exports
+    static Path writeDataFile(int rows) throws IOException
+    {
+        String[] majors = { "Informatika", "Sistem Informasi", "Teknik Elektro", "Manajemen", "Fisika" };
+        int[] ipks = ipkSeries(rows);
+        Path file = Files.createTempFile("students", ".txt");
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                w.write(String.valueOf(100_000 + i));
+                w.write(",Student" + i + ",");
+                w.write(majors[i % majors.length]);
+                w.write(",");
+                w.write(MainApp.formatIpk(ipks[i]));
+                w.newLine();
+            }
+        }
+        return file;
+    }
+
+    // ---- parse: allocation per row, String path vs mapped byte path ----
+    private static void benchParse(int rows) throws IOException
+    {
+        Path file = writeDataFile(rows);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        try {
+            System.out.println("=== parse: " + rows + " rows ===");
+            for (int round = 0; round < 3; round++) {
+                long[] sum = new long[1];
+                long a0 = threads.getThreadAllocatedBytes(self);
+                long t0 = System.nanoTime();
+                try (java.util.stream.Stream<String> lines = Files.lines(file)) {
+                    lines.forEach(line -> {
+                        String[] parts = line.split(",");
+                        sum[0] += parts[0].trim().length() + parts[1].trim().length() + parts[2].trim().length()
+                                + (long) (Double.parseDouble(parts[3].trim()) * 100);
+                    });
+                }
+                long t1 = System.nanoTime();
+                long a1 = threads.getThreadAllocatedBytes(self);
+                MainApp.MappedCsvReader.readFile(file, new MainApp.MappedCsvReader.RowSink() {
+                    @Override
+                    public void row(String nim, String name, String major, int ipk, long lineNumber) {
+                        sum[0] += nim.length() + name.length() + major.length() + ipk;
+                    }
+
+                    @Override
+                    public void rejected(MainApp.ImportResult.Reason reason, long lineNumber,
+                            MainApp.MappedCsvReader source) { }
+                });
+                long t2 = System.nanoTime();
+                long a2 = threads.getThreadAllocatedBytes(self);
+                printElapsed("round " + round + " lines+split (" + (a1 - a0) / rows + " B/row)", t1 - t0);
+                printElapsed("round " + round + " mapped     (" + (a2 - a1) / rows + " B/row)", t2 - t1);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // ---- snapshot: binary save/load vs text import ----
+    private static void benchSnapshot(int rows) throws IOException
+    {
+        Path file = writeDataFile(rows);
+        Path snap = Files.createTempFile("students", ".snap");
+        String[] courses = { "Struktur Data", "Basis Data", "Kalkulus", "Fisika Dasar" };
+        try {
+            System.out.println("=== snapshot: " + rows + " rows ===");
+            for (int round = 0; round < 3; round++) {
+                MainApp.StudentManager mgr = new MainApp.StudentManager();
+                MainApp.ImportResult imported = mgr.bulkLoadFromFile(file.toString());
+                for (int i = 0; i < rows; i += 3) {
+                    mgr.addCourseToStudent(String.valueOf(100_000 + i), courses[i % courses.length]);
+                }
+                long t0 = System.nanoTime();
+                MainApp.Snapshot.save(mgr, snap);
+                long t1 = System.nanoTime();
+                MainApp.StudentManager restored = new MainApp.StudentManager();
+                MainApp.Snapshot.loadInto(restored, snap);
+                long t2 = System.nanoTime();
+                if (restored.totalStudents() != mgr.totalStudents()) throw new IllegalStateException("row count mismatch");
+                printElapsed("round " + round + " text bulk import", imported.elapsedNanos);
+                printElapsed("round " + round + " snapshot save", t1 - t0);
+                printElapsed("round " + round + " snapshot load", t2 - t1);
+            }
+            System.out.println(">> text " + Files.size(file) / 1024 + " KB, snapshot " + Files.size(snap) / 1024 + " KB");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snap);
+        }
+    }
+
+    // ---- wal: group commit across concurrent writers ----
+    private static void benchWal(int rows) throws IOException
+    {
+        System.out.println("=== wal: " + rows + " durable inserts ===");
+        for (int threads : new int[] { 1, 4, 16 }) {
+            Path log = Files.createTempFile("students", ".wal");
+            try (MainApp.WriteAheadLog wal = MainApp.WriteAheadLog.open(log)) {
+                Thread[] workers = new Thread[threads];
+                long t0 = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int id = t;
+                    workers[t] = new Thread(() -> {
+                        for (int i = id; i < rows; i += threads) {
+                            MainApp.Student s = new MainApp.Student(String.valueOf(i), "S" + i, "Informatika", i % 401);
+                            wal.awaitDurable(wal.appendInsert(s)); // same as a single insertStudent
+                        }
+                    });
+                    workers[t].start();
+                }
+                for (Thread worker : workers) {
+                    try {
+                        worker.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                long nanos = System.nanoTime() - t0;
+                printElapsed(threads + " thread(s), " + wal.syncCount() + " fsyncs", nanos);
+            } finally {
+                Files.deleteIfExists(log);
+            }
+        }
+        // bulk path: append everything, wait once
+        Path log = Files.createTempFile("students", ".wal");
+        try (MainApp.WriteAheadLog wal = MainApp.WriteAheadLog.open(log)) {
+            long t0 = System.nanoTime();
+            long last = 0;
+            for (int i = 0; i < rows; i++) {
+                last = wal.appendInsert(new MainApp.Student(String.valueOf(i), "S" + i, "Informatika", i % 401));
+            }
+            wal.awaitDurable(last);
+            printElapsed("batch, " + wal.syncCount() + " fsyncs", System.nanoTime() - t0);
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    // ---- index: locked BST vs concurrent skip list under mixed writes + reads ----
+    private static void benchIndex(int rows)
+    {
+        System.out.println("=== index: " + rows + " ops (insert + NIM lookup + IPK lookup), cores = "
+                + Runtime.getRuntime().availableProcessors() + " ===");
+        for (int threads : new int[] {1, 4, 16, 64}) {
+            for (MainApp.StudentManager.IndexMode mode : MainApp.StudentManager.IndexMode.values()) {
+                MainApp.StudentManager mgr = new MainApp.StudentManager(mode);
+                int perThread = rows / threads;
+                List<Thread> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int first = t * perThread;
+                    workers.add(new Thread(() -> {
+                        for (int n = first; n < first + perThread; n++) {
+                            mgr.insertStudentHundredths(String.valueOf(n), "S" + n, "Informatika", n % 401);
+                            mgr.searchByNim(String.valueOf(n / 2));
+                            mgr.searchByIpkCeiling((n % 401) / 100.0);
+                        }
+                    }));
+                }
+                long t0 = System.nanoTime();
+                workers.forEach(Thread::start);
+                try {
+                    for (Thread w : workers) w.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                printElapsed(String.format("%-20s %2d threads", mode, threads), System.nanoTime() - t0);
+            }
+        }
+    }
+
+    // ---- heap: retained bytes per student ----
+    private static void benchHeap(int rows)
+    {
+        // NIM strings are made fresh, as a parser would, so a structure that keeps one pays for it
+        List<MainApp.Student> students = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) students.add(new MainApp.Student(nim(i), "S" + i, "Informatika", i % 401));
+        System.out.println("=== heap: " + rows + " students (strings counted when kept) ===");
+
+        long before = usedHeap();
+        Map<String, MainApp.Student> hashMap = new HashMap<>();
+        for (int i = 0; i < rows; i++) hashMap.put(nim(i), students.get(i));
+        long hashMapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        Map<String, MainApp.Student> nimTable = new MainApp.NimTable(16);
+        for (int i = 0; i < rows; i++) nimTable.put(nim(i), students.get(i));
+        long nimTableBytes = usedHeap() - before;
+
+        before = usedHeap();
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), cyclicIpks(rows));
+        long managerBytes = usedHeap() - before;
+
+        printBytes("HashMap<String, Student>", hashMapBytes, rows);
+        printBytes("NimTable", nimTableBytes, rows);
+        printBytes("StudentManager (+ Student objects)", managerBytes, rows);
+        // keep everything reachable until measured
+        if (hashMap.size() + nimTable.size() + mgr.totalStudents() != 3 * rows) throw new IllegalStateException("size mismatch");
+    }
+
+    // ---- columnar: object store vs struct-of-arrays store ----
+    private static void benchColumnar(int rows)
+    {
+        String[] majors = { "Informatika", "Sistem Informasi", "Teknik Elektro", "Matematika" };
+        int[] ipks = shuffledIpks(rows, 42);
+
+        long before = usedHeap();
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), ipks, majors);
+        long managerBytes = usedHeap() - before;
+
+        before = usedHeap();
+        MainApp.ColumnarStudentStore columnar = load(new MainApp.ColumnarStudentStore(), ipks, majors);
+        long columnarBytes = usedHeap() - before;
+
+        System.out.println("=== columnar: " + rows + " rows ===");
+        printBytes("StudentManager", managerBytes, rows);
+        printBytes("ColumnarStudentStore", columnarBytes, rows);
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            Map<String, Integer> perMajor = new TreeMap<>();
+            long sum = timed(label + " objects: avg + per major", () -> {
+                long total = 0;
+                for (MainApp.Student s : mgr.listAllOrderedByIpk()) {
+                    total += s.ipk;
+                    perMajor.merge(s.major(), 1, Integer::sum);
+                }
+                return total;
+            });
+            Map<String, Integer> columnarPerMajor = new TreeMap<>();
+            double columnarAvg = timed(label + " columns: avg + per major", () -> {
+                columnarPerMajor.putAll(columnar.countByMajor());
+                return columnar.averageIpk();
+            });
+            int listed = timed(label + " columns: ordered list", () -> columnar.listAllOrderedByIpk().size());
+            if ((double) sum / rows != columnarAvg || !perMajor.equals(columnarPerMajor) || listed != rows) {
+                throw new IllegalStateException("columnar results differ");
+            }
+        }
+        if (mgr.totalStudents() != columnar.totalStudents()) throw new IllegalStateException("size mismatch");
+    }
+
+    // ---- courses: bulk course assignment ----
+    private static void benchCourses(int rows)
+    {
+        final int coursesPerStudent = 500;
+        int students = Math.max(1, rows / 100);
+        String[] courses = new String[coursesPerStudent];
+        for (int c = 0; c < coursesPerStudent; c++) courses[c] = "Mata Kuliah " + c;
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), cyclicIpks(students));
+
+        System.out.println("=== courses: " + students + " students x " + coursesPerStudent + " courses ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            timed("round " + round + " addCourseToStudent", () -> {
+                for (int i = 0; i < students; i++) {
+                    String nim = nim(i);
+                    for (String course : courses) mgr.addCourseToStudent(nim, course);
+                }
+            });
+        }
+        if (mgr.searchByNim(nim(0)).courseCount() != coursesPerStudent) throw new IllegalStateException("course count mismatch");
+    }
+
+    // ---- courseindex: inverted index vs scan ----
+    private static void benchCourseIndex(int rows)
+    {
+        String[] courses = { "Struktur Data", "Basis Data", "Kalkulus", "Fisika Dasar", "Algoritma",
+                "Jaringan Komputer", "Sistem Operasi", "Statistika" };
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), cyclicIpks(rows));
+        Random rnd = new Random(11);
+        for (int i = 0; i < rows; i++) {
+            for (String course : courses) {
+                if (rnd.nextInt(4) == 0) mgr.addCourseToStudent(nim(i), course);
+            }
+        }
+        System.out.println("=== courseindex: " + rows + " students, " + courses.length + " courses, 25% enrolment each ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            int scanned = timed(label + " scan: A and B", () -> {
+                int count = 0;
+                for (MainApp.Student s : mgr.listAllOrderedByIpk()) {
+                    List<String> taken = s.courses();
+                    if (taken.contains("Struktur Data") && taken.contains("Basis Data")) count++;
+                }
+                return count;
+            });
+            int indexed = timed(label + " index: A and B", () -> mgr.searchByAllCourses("Struktur Data", "Basis Data").size());
+            timed(label + " index: A or B", () -> mgr.searchByAnyCourse("Struktur Data", "Basis Data").size());
+            if (scanned != indexed) throw new IllegalStateException("index " + indexed + " vs scan " + scanned);
+        }
+    }
+
+    // ---- major: per-major secondary index vs filter ----
+    private static void benchMajor(int rows)
+    {
+        String[] majors = { "Informatika", "Sistem Informasi", "Teknik Elektro", "Matematika", "Fisika" };
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), shuffledIpks(rows, 3), majors);
+        System.out.println("=== major: " + rows + " students, " + majors.length + " majors ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            List<MainApp.Student> filtered = new ArrayList<>();
+            int scanCount = timed(label + " scan: top 10 + count", () -> {
+                List<MainApp.Student> all = mgr.listAllOrderedByIpk();
+                for (int i = all.size() - 1; i >= 0 && filtered.size() < 10; i--) {
+                    if (all.get(i).major().equals("Informatika")) filtered.add(all.get(i));
+                }
+                int count = 0;
+                for (MainApp.Student s : all) if (s.major().equals("Informatika")) count++;
+                return count;
+            });
+            List<MainApp.Student> top = new ArrayList<>();
+            int count = timed(label + " index: top 10 + count", () -> {
+                top.addAll(mgr.topStudentsInMajor("Informatika", 10));
+                return mgr.countByMajor("Informatika");
+            });
+            if (count != scanCount || top.size() != filtered.size() || top.get(9).ipk != filtered.get(9).ipk) {
+                throw new IllegalStateException("per-major index disagrees with the scan");
+            }
+        }
+    }
+
+    // ---- rank: order statistics vs full copy ----
+    private static void benchRank(int rows)
+    {
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), shuffledIpks(rows, 5));
+        String probe = nim(rows / 3);
+        System.out.println("=== rank: " + rows + " students ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            // both phases answer { 100th best IPK, rank of probe, median, P90 }
+            double[] copy = timed(label + " copy: top 100/rank/median/P90", () -> {
+                List<MainApp.Student> all = mgr.listAllOrderedByIpk();
+                int n = all.size();
+                List<MainApp.Student> top = new ArrayList<>(all.subList(n - 100, n));
+                Collections.reverse(top);
+                int probeIpk = mgr.searchByNim(probe).ipk, higher = 0;
+                for (MainApp.Student s : all) if (s.ipk > probeIpk) higher++;
+                return new double[] { top.get(99).ipk, higher + 1,
+                        all.get((int) Math.ceil(n * 0.5) - 1).ipk / 100.0, all.get((int) Math.ceil(n * 0.9) - 1).ipk / 100.0 };
+            });
+            double[] tree = timed(label + " tree: top 100/rank/median/P90", () -> new double[] {
+                    mgr.topByIpk(100).get(99).ipk, mgr.rankOfNim(probe), mgr.medianIpk(), mgr.percentileIpk(90) });
+            if (!Arrays.equals(copy, tree)) throw new IllegalStateException("order statistics disagree with the copy");
+        }
+    }
+
+    // ---- stream: list copy vs lazy spliterator ----
+    private static void benchStream(int rows)
+    {
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), shuffledIpks(rows, 9));
+        System.out.println("=== stream: " + rows + " students ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            long copySum = timedAllocating(label + " copy: full walk", () -> {
+                long sum = 0;
+                for (MainApp.Student s : mgr.listAllOrderedByIpk()) sum += s.ipk;
+                return sum;
+            });
+            long streamSum = timedAllocating(label + " stream: full walk", () -> mgr.streamAllOrderedByIpk().mapToLong(s -> s.ipk).sum());
+            MainApp.Student copyFirst = timed(label + " copy: first >= 1.00", () -> {
+                for (MainApp.Student s : mgr.listAllOrderedByIpk()) {
+                    if (s.ipk >= 100) return s;
+                }
+                return null;
+            });
+            MainApp.Student streamFirst = timed(label + " stream: first >= 1.00",
+                    () -> mgr.streamAllOrderedByIpk().filter(s -> s.ipk >= 100).findFirst().orElse(null));
+            if (copySum != streamSum || copyFirst == null || streamFirst == null || copyFirst.ipk != streamFirst.ipk) {
+                throw new IllegalStateException("stream disagrees with the list copy");
+            }
+        }
+    }
+
+    // ---- visit: copying searches vs visitor callbacks ----
+    private static void benchVisit(int rows)
+    {
+        MainApp.StudentManager mgr = load(new MainApp.StudentManager(), shuffledIpks(rows, 11));
+        for (int i = 0; i < rows; i += 4) mgr.addCourseToStudent(nim(i), "Struktur Data");
+        System.out.println("=== visit: " + rows + " students, all " + (MainApp.MAX_IPK + 1) + " IPKs ===");
+        for (int round = 0; round < ROUNDS; round++) {
+            String label = "round " + round;
+            long[] sums = new long[4];
+            timedAllocating(label + " copy: by IPK", () -> {
+                for (int key = 0; key <= MainApp.MAX_IPK; key++) {
+                    for (MainApp.Student s : mgr.searchByIpk(key / 100.0)) sums[0] += s.ipk;
+                }
+            });
+            timedAllocating(label + " visit: by IPK", () -> {
+                for (int key = 0; key <= MainApp.MAX_IPK; key++) mgr.forEachWithIpk(key / 100.0, s -> sums[1] += s.ipk);
+            });
+            timedAllocating(label + " copy: course", () -> {
+                for (MainApp.Student s : mgr.searchByAllCourses("Struktur Data")) sums[2] += s.ipk;
+            });
+            int enrolled = timedAllocating(label + " visit: course", () -> mgr.forEachWithAllCourses(s -> sums[3] += s.ipk, "Struktur Data"));
+            if (sums[0] != sums[1] || sums[2] != sums[3] || enrolled != (rows + 3) / 4) {
+                throw new IllegalStateException("visitors disagree with the copying searches");
+            }
+        }
+    }
+
+    // ---- batch: insertStudents / deleteByNims vs single calls ----
+    private static final int BATCH = 1000;
+
+    private static void benchBatch(int rows) throws IOException
+    {
+        int[] ipks = shuffledIpks(rows, 13);
+        for (MainApp.StudentManager.IndexMode mode : MainApp.StudentManager.IndexMode.values()) {
+            System.out.println("=== batch: " + rows + " students, " + mode + " ===");
+            for (int round = 0; round < ROUNDS; round++) {
+                batchRound("round " + round, new MainApp.StudentManager(mode), new MainApp.StudentManager(mode), ipks);
+            }
+        }
+        int durable = Math.max(BATCH, rows / 20);
+        System.out.println("=== batch: " + durable + " students, durable (write-ahead log) ===");
+        Path singleLog = Files.createTempFile("students", ".wal");
+        Path batchLog = Files.createTempFile("students", ".wal");
+        try {
+            MainApp.StudentManager single = new MainApp.StudentManager();
+            MainApp.StudentManager batched = new MainApp.StudentManager();
+            single.attachLog(MainApp.WriteAheadLog.open(singleLog));
+            batched.attachLog(MainApp.WriteAheadLog.open(batchLog));
+            batchRound("logged", single, batched, Arrays.copyOf(ipks, durable));
+            single.closeLog();
+            batched.closeLog();
+        } finally {
+            Files.deleteIfExists(singleLog);
+            Files.deleteIfExists(batchLog);
+        }
+    }
+
+    // each phase starts from a collected heap, so one phase's garbage is not billed to the next
+    private static void batchRound(String label, MainApp.StudentManager single, MainApp.StudentManager batched, int[] ipks)
+    {
+        int rows = ipks.length;
+        System.gc();
+        timed(label + " single: insert", () -> load(single, ipks));
+
+        System.gc();
+        int inserted = timed(label + " batch:  insert", () -> {
+            int count = 0;
+            for (int from = 0; from < rows; from += BATCH) {
+                List<MainApp.StudentManager.Row> batch = new ArrayList<>(BATCH);
+                for (int i = from; i < Math.min(rows, from + BATCH); i++) {
+                    batch.add(new MainApp.StudentManager.Row(nim(i), "S" + i, "Informatika", ipks[i]));
+                }
+                for (boolean ok : batched.insertStudents(batch)) if (ok) count++;
+            }
+            return count;
+        });
+
+        System.gc();
+        timed(label + " single: delete", () -> {
+            for (int i = 0; i < rows; i++) single.deleteByNim(nim(i));
+        });
+
+        System.gc();
+        int deleted = timed(label + " batch:  delete", () -> {
+            int count = 0;
+            for (int from = 0; from < rows; from += BATCH) {
+                List<String> nims = new ArrayList<>(BATCH);
+                for (int i = from; i < Math.min(rows, from + BATCH); i++) nims.add(nim(i));
+                for (boolean ok : batched.deleteByNims(nims)) if (ok) count++;
+            }
+            return count;
+        });
+
+        if (inserted != rows || deleted != rows || single.totalStudents() != 0 || batched.totalStudents() != 0) {
+            throw new IllegalStateException("batch results disagree with single calls");
+        }
+    }
+
+    // ---- offheap: heap-resident vs off-heap records ----
+    private static void benchOffHeap(int rows)
+    {
+        int[] ipks = shuffledIpks(rows, 7);
+        System.out.println("=== offheap: " + rows + " rows ===");
+
+        long before = usedHeap();
+        long gc0 = gcMillis();
+        MainApp.StudentManager mgr = timed("StudentManager load", () -> load(new MainApp.StudentManager(), ipks));
+        long mgrGc = gcMillis() - gc0;
+        long mgrBytes = usedHeap() - before;
+
+        before = usedHeap();
+        gc0 = gcMillis();
+        MainApp.OffHeapStudentStore offHeap = timed("OffHeapStudentStore load", () -> load(new MainApp.OffHeapStudentStore(rows), ipks));
+        long offGc = gcMillis() - gc0;
+        long offBytes = usedHeap() - before;
+
+        printElapsed("StudentManager load GC", mgrGc * 1_000_000);
+        printElapsed("OffHeapStudentStore load GC", offGc * 1_000_000);
+        printBytes("StudentManager heap", mgrBytes, rows);
+        printBytes("OffHeapStudentStore heap", offBytes, rows);
+        printBytes("OffHeapStudentStore off-heap", offHeap.offHeapBytes(), rows);
+
+        Random rnd = new Random(1);
+        int lookups = Math.min(rows, 200_000);
+        for (MainApp.StudentStore store : new MainApp.StudentStore[] { mgr, offHeap }) {
+            int found = timed(store.getClass().getSimpleName() + " " + lookups + " lookups", () -> {
+                int count = 0;
+                for (int i = 0; i < lookups; i++) {
+                    if (store.searchByNim(nim(rnd.nextInt(rows))) != null) count++;
+                }
+                return count;
+            });
+            if (found != lookups) throw new IllegalStateException("lookup missed");
+        }
+        if (mgr.totalStudents() != offHeap.totalStudents()) throw new IllegalStateException("size mismatch");
+    }
+
+    private static long gcMillis()
+    {
+        long total = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static void shuffle(int[] values, long seed)
+    {
+        Random rnd = new Random(seed);
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+    }
+
+    private static long usedHeap()
+    {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static void printBytes(String label, long bytes, int rows)
+    {
+        System.out.printf(">> %-34s %8.1f bytes/student%n", label, (double) bytes / rows);
+    }
+
+    // ---- monotonic: sorted input must not deepen the tree or use the call stack ----
+    private static boolean monotonic(int rows)
+    {
+        int[] ipks = ipkSeries(rows);
+        List<String> errors = new ArrayList<>();
+        MainApp.StudentManager mgr = new MainApp.StudentManager();
+        MainApp.BST index = new MainApp.BST();
+        MainApp.Student[] students = new MainApp.Student[rows];
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            mgr.insertStudentHundredths(String.valueOf(i), "S" + i, "Informatika", ipks[i]);
+            students[i] = new MainApp.Student(String.valueOf(i), "S" + i, "Informatika", ipks[i]);
+            index.insert(students[i]);
+        }
+        long loaded = System.nanoTime() - t0;
+
+        // AVL bound for n distinct keys: height < 1.45 * log2(n + 2)
+        int distinct = (int) Arrays.stream(ipks).distinct().count();
+        double bound = 1.45 * Math.log(distinct + 2) / Math.log(2);
+        int height = index.height();
+        if (height > bound) errors.add("height " + height + " above AVL bound " + bound);
+        int last = -1, seen = 0;
+        for (Iterator<MainApp.Student> it = mgr.iterateAllOrderedByIpk(); it.hasNext(); seen++) {
+            MainApp.Student s = it.next();
+            if (s.ipk < last) errors.add("out of order at " + s);
+            last = s.ipk;
+        }
+        if (seen != rows) errors.add("walked " + seen + " of " + rows);
+        for (int k = 0; k < rows; k += Math.max(1, rows / 1000)) {
+            MainApp.Student s = mgr.selectByIpk(k);
+            if (s == null || s.ipk != ipks[k]) errors.add("select(" + k + ") = " + s);
+        }
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            if (!mgr.deleteByNim(String.valueOf(i))) errors.add("delete missed " + i);
+        }
+        long deleted = System.nanoTime() - t1;
+
+        // shuffled deletes hit the middle of big buckets, which moves bucket positions around
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++) order[i] = i;
+        shuffle(order, 23);
+        long t2 = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            index.remove(students[order[i]]);
+            if (i == rows / 2) {
+                index.remove(students[order[i]]); // second remove must be a no-op
+                if (index.size() != rows - i - 1) errors.add("size " + index.size() + " after " + (i + 1) + " deletes");
+                int walked = 0, prev = -1;
+                for (MainApp.Student s : index.inorder()) {
+                    if (s.ipk < prev) errors.add("out of order after deletes at " + s);
+                    prev = s.ipk;
+                    walked++;
+                }
+                if (walked != index.size()) errors.add("walked " + walked + " of " + index.size() + " after deletes");
+            }
+        }
+        long shuffledDeleted = System.nanoTime() - t2;
+        if (mgr.totalStudents() != 0 || index.size() != 0 || index.height() != 0) errors.add("not empty after deleting everything");
+
+        System.out.println("=== monotonic: " + rows + " increasing IPKs (" + distinct + " distinct), default stack ===");
+        printElapsed("insert (height " + height + ")", loaded);
+        printElapsed("delete all in order", deleted);
+        printElapsed("bare BST: delete all shuffled", shuffledDeleted);
+        errors.stream().limit(10).forEach(e -> System.out.println(">> FAIL: " + e));
+        System.out.println(errors.isEmpty() ? ">> OK: ordered, balanced, no stack growth" : ">> " + errors.size() + " failure(s)");
+        return errors.isEmpty();
+    }
+
+    // ---- stress: consistency of StudentManager under concurrent use ----
+    private static boolean stress(int rows, MainApp.StudentManager.IndexMode mode)
+    {
+        final int writers = 4, readers = 4;
+        MainApp.StudentManager mgr = new MainApp.StudentManager(mode);
+        java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.concurrent.ConcurrentLinkedQueue<String> errors = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        java.util.concurrent.atomic.AtomicLong reads = new java.util.concurrent.atomic.AtomicLong();
+        java.util.concurrent.atomic.AtomicLong failFast = new java.util.concurrent.atomic.AtomicLong();
+        int perWriter = rows / writers;
+
+        // writer w owns NIMs [w * perWriter, (w + 1) * perWriter): insert all, delete every 3rd,
+        // add a course to every 5th that survives
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int first = w * perWriter;
+            threads.add(new Thread(() -> {
+                for (int n = first; n < first + perWriter; n++) {
+                    if (!mgr.insertStudentHundredths(String.valueOf(n), "S" + n, "Informatika", n % 401)) {
+                        errors.add("insert rejected for fresh NIM " + n);
+                    }
+                    if (n % 3 == 0 && !mgr.deleteByNim(String.valueOf(n))) errors.add("delete missed NIM " + n);
+                    if (n % 3 != 0 && n % 5 == 0) mgr.addCourseToStudent(String.valueOf(n), "Struktur Data");
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            long seed = r;
+            threads.add(new Thread(() -> {
+                Random rnd = new Random(seed);
+                while (!done.get()) {
+                    int n = rnd.nextInt(rows);
+                    MainApp.Student s = mgr.searchByNim(String.valueOf(n));
+                    if (s != null && (!s.name.equals("S" + n) || s.ipk != n % 401)) errors.add("torn read " + s);
+                    int key = rnd.nextInt(401);
+                    for (MainApp.Student hit : mgr.searchByIpk(key / 100.0)) {
+                        if (hit.ipk != key) errors.add("IPK " + key + " returned " + hit);
+                    }
+                    try {
+                        int last = -1;
+                        Iterator<MainApp.Student> it = mgr.searchByIpkRange(key / 100.0, key / 100.0 + 0.2);
+                        while (it.hasNext()) {
+                            MainApp.Student hit = it.next();
+                            if (hit.ipk < last) errors.add("range out of order at " + hit);
+                            last = hit.ipk;
+                        }
+                    } catch (ConcurrentModificationException e) {
+                        failFast.incrementAndGet(); // expected while writers run
+                    }
+                    reads.addAndGet(3);
+                }
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        threads.forEach(Thread::start);
+        try {
+            for (int w = 0; w < writers; w++) threads.get(w).join();
+            done.set(true);
+            for (Thread t : threads) t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long nanos = System.nanoTime() - t0;
+
+        // final state must match exactly what the writers did
+        int expected = 0, enrolled = 0;
+        for (int n = 0; n < writers * perWriter; n++) {
+            MainApp.Student s = mgr.searchByNim(String.valueOf(n));
+            if (n % 3 == 0) {
+                if (s != null) errors.add("deleted NIM still present " + n);
+                continue;
+            }
+            expected++;
+            if (n % 5 == 0) enrolled++;
+            if (s == null) {
+                errors.add("lost NIM " + n);
+            } else if ((n % 5 == 0) != s.courses().contains("Struktur Data")) {
+                errors.add("course update lost for " + n);
+            }
+        }
+        if (mgr.totalStudents() != expected) errors.add("hash table has " + mgr.totalStudents() + ", expected " + expected);
+        List<MainApp.Student> ordered = mgr.listAllOrderedByIpk();
+        if (ordered.size() != expected) errors.add("IPK index has " + ordered.size() + ", expected " + expected);
+        int byKey = 0;
+        for (int key = 0; key <= MainApp.MAX_IPK; key++) byKey += mgr.searchByIpk(key / 100.0).size();
+        if (byKey != expected) errors.add("IPK buckets hold " + byKey + ", expected " + expected);
+        int indexed = mgr.searchByAllCourses("Struktur Data").size();
+        if (indexed != enrolled) errors.add("course index has " + indexed + ", expected " + enrolled);
+
+        System.out.println("=== stress " + mode + ": " + writers + " writers x " + perWriter + " NIMs, " + readers + " readers ===");
+        printElapsed(reads.get() + " reads, " + failFast.get() + " fail-fast", nanos);
+        errors.stream().limit(10).forEach(e -> System.out.println(">> FAIL: " + e));
+        System.out.println(errors.isEmpty() ? ">> OK: no lost or torn updates" : ">> " + errors.size() + " failure(s)");
+        return errors.isEmpty();
+    }
+}
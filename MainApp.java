@@ -1,572 +1,4980 @@
-import java.util.*;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.stream.Stream;
-
-
-/**
- * MainApp.java
- * A simple student management system using:
- * - HashMap<String, Student> as Hash Table (fast lookup by NIM)
- * - BST keyed by IPK (double) where each node stores a list of students with same IPK
- *
- * Features:
- * - insert student
- * - search by NIM (O(1) avg via HashMap)
- * - search by IPK (via BST)
- * - delete by NIM (removes from HashMap and BST)
- * - inorder traversal of BST (students ascending by IPK)
- * - Batch upload from .txt file
- *
- * Compile: javac MainApp.java
- * Run    : java MainApp
- */
-public class MainApp 
-{
-    // ---- Student model ----
-    static class Student 
-    {
-        String nim;
-        String name;
-        String major;
-        double ipk;
-        List<String> courses;
-
-        public Student(String nim, String name, String major, double ipk) 
-        {
-            this.nim = nim;
-            this.name = name;
-            this.major = major;
-            this.ipk = ipk;
-            this.courses = new ArrayList<>();
-        }
-
-        public void addCourses(String course)
-        {
-            if ( !courses.contains(course))
-            {
-                courses.add(course);
-            }
-        }
-
-        @Override
-        public String toString() 
-        {
-            return String.format("NIM:%s | Name:%s | Jurusan:%s | IPK:%.2f | MK:%s",
-                    nim, name, major, ipk, courses.isEmpty() ? "Belum ada" : String.join(", ", courses));
-        }
-    }
-
-    // ---- BST Node (key = ipk) ----
-    static class BSTNode 
-    {
-        double key; // ipk
-        List<Student> students; // all students with this ipk
-        BSTNode left, right;
-
-        BSTNode(Student studentEntry) 
-        {
-            this.key = studentEntry.ipk;
-            this.students = new ArrayList<>();
-            this.students.add(studentEntry);
-        }
-    }
-
-    // ---- BST Manager ----
-    static class BST 
-    {
-        private BSTNode root;
-
-        // insert student
-        public void insert(Student studentEntry) 
-        {
-            root = insertRec(root, studentEntry);
-        }
-
-        private BSTNode insertRec(BSTNode node, Student studentEntry) 
-        {
-            if (node == null) {
-                return new BSTNode(studentEntry);
-            }
-            if (Double.compare(studentEntry.ipk, node.key) == 0) {
-                node.students.add(studentEntry);
-            } else if (studentEntry.ipk < node.key) {
-                node.left = insertRec(node.left, studentEntry);
-            } else {
-                node.right = insertRec(node.right, studentEntry);
-            }
-            return node;
-        }
-
-        // find students by exact IPK
-        public List<Student> findByIpk(double ipk) 
-        {
-            BSTNode node = findNode(root, ipk);
-            return node == null ? Collections.emptyList() : new ArrayList<>(node.students);
-        }
-
-        private BSTNode findNode(BSTNode node, double ipk) 
-        {
-            if (node == null) return null;
-            if (Double.compare(ipk, node.key) == 0) return node;
-            if (ipk < node.key) return findNode(node.left, ipk);
-            return findNode(node.right, ipk);
-        }
-
-        // remove a student by NIM and its ipk; we assume caller provides ipk
-        public void removeStudent(String nim, double ipk) 
-        {
-            BSTNode node = findNode(root, ipk);
-            if (node == null) return;
-            // remove student in the list
-            node.students.removeIf(s -> s.nim.equals(nim));
-            // if no more students in this node, delete the node from BST
-            if (node.students.isEmpty()) {
-                root = deleteNode(root, ipk);
-            }
-        }
-
-        // BST node deletion by key
-        private BSTNode deleteNode(BSTNode node, double key) {
-            if (node == null) return null;
-            if (key < node.key) {
-                node.left = deleteNode(node.left, key);
-            } else if (key > node.key) {
-                node.right = deleteNode(node.right, key);
-            } else {
-                // node to delete
-                if (node.left == null) return node.right;
-                if (node.right == null) return node.left;
-                // two children: replace with inorder successor (min in right)
-                BSTNode successorNode = minNode(node.right);
-                node.key = successorNode.key;
-                node.students = successorNode.students;
-                node.right = deleteNode(node.right, successorNode.key);
-            }
-            return node;
-        }
-
-        private BSTNode minNode(BSTNode node) {
-            while (node.left != null) node = node.left;
-            return node;
-        }
-
-        // inorder traversal: returns ordered list of students (by ipk asc)
-        public List<Student> inorder() {
-            List<Student> list = new ArrayList<>();
-            inorderRec(root, list);
-            return list;
-        }
-
-        private void inorderRec(BSTNode node, List<Student> out) {
-            if (node == null) return;
-            inorderRec(node.left, out);
-            // add students in the node (they share same ipk) - preserve insertion order
-            out.addAll(node.students);
-            inorderRec(node.right, out);
-        }
-    }
-
-    // ------------------- Weighted Graph for Majors -------------------
-    static class WeightedGraph 
-    {
-        private Map<String, List<Edge>> adj = new HashMap<>();
-
-        static class Edge 
-        {
-            String to;
-            int weight;
-            Edge(String t, int w) { to = t; weight = w; }
-        }
-
-        public void addNode(String node) 
-        {
-            adj.putIfAbsent(node, new ArrayList<>());
-        }
-
-        public void addEdge(String from, String to, int weight) 
-        {
-            addNode(from);
-            addNode(to);
-            adj.get(from).add(new Edge(to, weight));
-            adj.get(to).add(new Edge(from, weight));
-        }
-
-        public void printGraph() 
-        {
-            for (String node : adj.keySet()) {
-                StringBuilder sb = new StringBuilder(node + " -> ");
-                for (Edge e : adj.get(node)) {
-                    sb.append(e.to).append("(").append(e.weight).append(") ");
-                }
-                System.out.println(sb);
-            }
-        }
-
-        public List<String> bfs(String start) 
-        {
-            List<String> visited = new ArrayList<>();
-            if (!adj.containsKey(start)) return visited;
-            Queue<String> q = new LinkedList<>();
-            Set<String> seen = new HashSet<>();
-            q.add(start);
-            seen.add(start);
-            while (!q.isEmpty()) {
-                String cur = q.poll();
-                visited.add(cur);
-                for (Edge e : adj.get(cur)) 
-                {
-                    if (!seen.contains(e.to)) 
-                    {
-                        seen.add(e.to);
-                        q.add(e.to);
-                    }
-                }
-            }
-            return visited;
-        }
-
-        public PathResult shortestPath(String source, String target) 
-        {
-            Map<String, Integer> dist = new HashMap<>();
-            Map<String, String> prev = new HashMap<>();
-            for (String node : adj.keySet()) 
-            {
-                dist.put(node, Integer.MAX_VALUE / 2);
-            }
-            dist.put(source, 0);
-
-            PriorityQueue<Map.Entry<String, Integer>> pq =
-                    new PriorityQueue<>(Comparator.comparingInt(Map.Entry::getValue));
-            pq.add(new AbstractMap.SimpleEntry<>(source, 0));
-
-            while (!pq.isEmpty()) 
-            {
-                Map.Entry<String, Integer> current = pq.poll();
-                String u = current.getKey();
-                int d = current.getValue();
-
-                if (d > dist.get(u)) continue;
-                if (u.equals(target)) break;
-
-                for (Edge e : adj.get(u)) 
-                {
-                    int nd = d + e.weight;
-                    if (nd < dist.get(e.to)) 
-                    {
-                        dist.put(e.to, nd);
-                        prev.put(e.to, u);
-                        pq.add(new AbstractMap.SimpleEntry<>(e.to, nd));
-                    }
-                }
-            }
-
-            List<String> path = new LinkedList<>();
-            String cur = target;
-            if (!prev.containsKey(target) && !source.equals(target)) 
-            {
-                return new PathResult(Collections.emptyList(), -1);
-            }
-            while (cur != null) 
-            {
-                path.add(0, cur);
-                cur = prev.get(cur);
-            }
-            return new PathResult(path, dist.get(target));
-        }
-    }
-
-    static class PathResult 
-    {
-        List<String> path;
-        int totalWeight;
-        PathResult(List<String> path, int totalWeight) 
-        {
-            this.path = path;
-            this.totalWeight = totalWeight;
-        }
-    }
-
-    // ------------------- Student Manager -------------------
-    static class StudentManager {
-        private Map<String, Student> hashTable; // key: NIM
-        private BST bst;
-
-        public StudentManager() 
-        {
-            hashTable = new HashMap<>();
-            bst = new BST();
-        }
-
-        // insert new student; returns true if success, false if NIM exists
-        public boolean insertStudent(String nim, String name, String major, double ipk) {
-            if (hashTable.containsKey(nim)) return false; // duplicate NIM not allowed
-            Student studentEntry = new Student(nim, name, major, ipk);
-            hashTable.put(nim, studentEntry);
-            bst.insert(studentEntry);
-            return true;
-        }
-
-        /**
-         * [NEW METHOD] upload batch menggunakan .txt file.
-         * format per line: NIM,Name,IPK
-         */
-        public void batchUploadFromFile(String filePath) {
-            try (Stream<String> stream = Files.lines(Paths.get(filePath))) {
-                stream.forEach(line -> {
-                    String[] parts = line.split(",");
-                    if (parts.length != 4) {
-                        System.out.println(">> SKIPPED: Invalid format -> " + line);
-                        return;
-                    }
-                    try {
-                        String nim = parts[0].trim();
-                        String name = parts[1].trim();
-                        String major = parts[2].trim();
-                        double ipk = Double.parseDouble(parts[3].trim());
-                        if (!insertStudent(nim, name, major, ipk)) {
-                            System.out.println(">> SKIPPED: NIM already exists -> " + nim);
-                        }
-                    } catch (NumberFormatException e) {
-                        System.out.println(">> SKIPPED: Invalid IPK format -> " + line);
-                    }
-                });
-                System.out.println("\n>> Batch upload process finished.");
-                System.out.println(">> Total students now: " + totalStudents());
-
-            } catch (IOException e) {
-                System.out.println(">> ERROR: File not found or cannot be read -> " + filePath);
-            }
-        }
-
-        // search by NIM (fast)
-        public Student searchByNim(String nim) {
-            return hashTable.get(nim);
-        }
-
-        // search by IPK (may return many)
-        public List<Student> searchByIpk(double ipk) {
-            return bst.findByIpk(ipk);
-        }
-
-        // delete by NIM
-        public boolean deleteByNim(String nim) {
-            Student s = hashTable.remove(nim);
-            if (s == null) return false;
-            bst.removeStudent(nim, s.ipk);
-            return true;
-        }
-
-        public List<Student> listAllOrderedByIpk() {
-            return bst.inorder();
-        }
-
-        // stats
-        public int totalStudents() {
-            return hashTable.size();
-        }
-
-        public boolean addCourseToStudent(String nim, String course) 
-        {
-            Student studentEntry = hashTable.get(nim);
-            if (studentEntry == null) return false;
-            studentEntry.addCourses(course);
-            return true;
-        }
-    }
-
-    // ---- Utility: print elapsed nicely ----
-    private static void printElapsed(String label, long nanos) {
-        System.out.printf(">> %s - Waktu Eksekusi: %.3f ms%n", label, nanos / 1_000_000.0);
-    }
-
-    // ---- Simple CLI demo ----
-    public static void main(String[] args) {
-        // Create a new student manager instance
-        StudentManager mgr = new StudentManager();
-        WeightedGraph majorGraph = new WeightedGraph();
-
-        // Sample weighted graph
-        majorGraph.addEdge("Informatika", "Sistem Informasi", 4);
-        majorGraph.addEdge("Informatika", "Teknik Elektro", 6);
-        majorGraph.addEdge("Sistem Informasi", "Manajemen", 5);
-        majorGraph.addEdge("Teknik Elektro", "Fisika", 3);
-        majorGraph.addEdge("Fisika", "Manajemen", 10);
-
-        // Welcome message
-        System.out.println("==============================================");
-        System.out.println("Sistem Manajemen Mahasiswa");
-        System.out.println("Database saat ini kosong.");
-        System.out.println("==============================================");
-
-        // Directly start the interactive menu for user input
-        interactiveMenu(mgr, majorGraph);
-    }
-
-    private static void interactiveMenu(StudentManager mgr, WeightedGraph majorGraph) 
-    {
-        Scanner sc = new Scanner(System.in);
-
-        while (true) {
-
-            System.out.println("\n=== Sistem Manajemen Mahasiswa ===");
-            System.out.println("1. Tambah Mahasiswa");
-            System.out.println("2. Cari Mahasiswa by NIM");
-            System.out.println("3. Cari Mahasiswa by IPK");
-            System.out.println("4. Hapus Mahasiswa by NIM");
-            System.out.println("5. List Semua Mahasiswa (IPK Asc)");
-            System.out.println("6. Impor Data Mahasiswa dari .txt File");
-            System.out.println("7. Tambah Mata Kuliah ke Mahasiswa");
-            System.out.println("8. Lihat Graph Jurusan");
-            System.out.println("9. BFS Graph Jurusan");
-            System.out.println("10. Shortest Path antar jurusan (Dijkstra)");
-            System.out.println("0. Exit");
-            System.out.print("Pilih: ");
-            System.out.print("Choice> ");
-            String line = sc.nextLine().trim();
-            if (line.isEmpty()) continue;
-            int choice;
-            try {
-                choice = Integer.parseInt(line);
-            } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a valid number.");
-                continue;
-            }
-
-            switch (choice) {
-                case 0:
-                    System.out.println("Exit.");
-                    sc.close();
-                    return;
-                case 1: {
-                    // Add student (time only the processing, not input)
-                    System.out.print("NIM: "); String nim = sc.nextLine();
-                    System.out.print("Name: "); String name = sc.nextLine();
-                    System.out.print("Jurusan: "); String major = sc.nextLine();
-                    System.out.print("IPK: ");
-                    try {
-                        double ipk = Double.parseDouble(sc.nextLine());
-                        long t0 = System.nanoTime();
-                        boolean ok = mgr.insertStudent(nim, name, major, ipk);
-                        long t1 = System.nanoTime();
-                        System.out.println(ok ? ">> Inserted successfully." : ">> ERROR: NIM already exists.");
-                        printElapsed("Insert", t1 - t0);
-                    } catch (NumberFormatException e) {
-                        System.out.println(">> ERROR: Invalid IPK format. Please use a number (e.g., 3.75).");
-                        break;
-                    }
-                    break;
-                }
-                case 2: {
-                    // Search by NIM
-                    System.out.print("NIM to search: "); String q = sc.nextLine().trim();
-                    long t0 = System.nanoTime();
-                    Student s = mgr.searchByNim(q);
-                    long t1 = System.nanoTime();
-                    System.out.println(s == null ? ">> Not found." : ">> Found: " + s);
-                    printElapsed("Search by NIM", t1 - t0);
-                    break;
-                }
-                case 3: {
-                   // Search by IPK
-                    System.out.print("IPK to search: ");
-                    double ipkNeedToSearch;
-                    try {
-                        ipkNeedToSearch = Double.parseDouble(sc.nextLine().trim());
-                    } catch (NumberFormatException e) {
-                        System.out.println(">> ERROR: Invalid IPK format. Please use a number (e.g., 3.75).");
-                        break;
-                    }
-                    long t0 = System.nanoTime();
-                    List<Student> outputUser = mgr.searchByIpk(ipkNeedToSearch);
-                    long t1 = System.nanoTime();
-                    if (outputUser.isEmpty()) {
-                        System.out.println(">> No student found with that IPK.");
-                    } else {
-                        System.out.println(">> Found " + outputUser.size() + " student(s):");
-                        outputUser.forEach(System.out::println);
-                    }
-                    printElapsed("Search by IPK", t1 - t0);
-                    break;
-                }
-                case 4: {
-                    // Delete by NIM
-                    System.out.print("NIM to delete: "); String d = sc.nextLine().trim();
-                    long t0 = System.nanoTime();
-                    boolean removed = mgr.deleteByNim(d);
-                    long t1 = System.nanoTime();
-                    System.out.println(removed ? ">> Deleted successfully." : ">> ERROR: NIM not found.");
-                    printElapsed("Delete by NIM", t1 - t0);
-                    break;
-                }
-
-                case 5: {
-                    // List all (measure traversal only, not printing)
-                    System.out.println("--- All students (ordered by IPK ascending) ---");
-                    long t0 = System.nanoTime();
-                    List<Student> allStudents = mgr.listAllOrderedByIpk();
-                    long t1 = System.nanoTime();
-                    if (allStudents.isEmpty()) {
-                        System.out.println(">> Database is empty.");
-                    } else {
-                        allStudents.forEach(System.out::println);
-                    }
-                    printElapsed("List (BST inorder traversal)", t1 - t0);
-                    break;
-                }
-
-                case 6: {
-                    // Batch upload (measure file read + processing)
-                    System.out.print("Enter .txt file path (e.g., data.txt): ");
-                    String filePath = sc.nextLine().trim();
-                    long t0 = System.nanoTime();
-                    mgr.batchUploadFromFile(filePath);
-                    long t1 = System.nanoTime();
-                    printElapsed("Batch upload", t1 - t0);
-                    break;
-                }
-
-                case 7: {
-                    // input mata kuliah to student data
-                    System.out.print("NIM: ");
-                    String nimC = sc.nextLine();
-                    System.out.print("Nama Mata Kuliah: ");
-                    String course = sc.nextLine();
-                    System.out.println(mgr.addCourseToStudent(nimC, course)
-                            ? "Mata kuliah ditambahkan."
-                            : "Mahasiswa tidak ditemukan.");
-                }
-
-                case 8: {
-                    majorGraph.printGraph();
-                    break;
-                }
-
-                case 9 : {
-                    System.out.print("Mulai BFS dari jurusan: ");
-                    String start = sc.nextLine();
-                    List<String> bfs = majorGraph.bfs(start);
-                    System.out.println(bfs.isEmpty() ? "Tidak ditemukan" : String.join(" -> ", bfs));
-                    break;
-                }
-                case 10 : {
-                    System.out.print("Dari: ");
-                    String from = sc.nextLine();
-                    System.out.print("Ke: ");
-                    String to = sc.nextLine();
-                    PathResult result = majorGraph.shortestPath(from, to);
-                    if (result.totalWeight == -1) {
-                        System.out.println("Tidak ada jalur");
-                    } else {
-                        System.out.println("Jalur terpendek: " + String.join(" -> ", result.path));
-                        System.out.println("Total bobot: " + result.totalWeight);
-                    }
-                    break;
-                }                
-                default:
-                    System.out.println(">> Unknown option.");
-            }
-        }
-    }
-}
+import java.util.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.ClosedWatchServiceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+
+/**
+ * MainApp.java
+ * A simple student management system using:
+ * - HashMap<String, Student> as Hash Table (fast lookup by NIM)
+ * - BST keyed by IPK where each node stores a list of students with same IPK
+ *   (AVL-balanced, so depth stays O(log n) for sorted imports)
+ * - IPK kept as fixed-point int hundredths (3.75 -> 375), range 0..400
+ *
+ * Features:
+ * - insert student
+ * - search by NIM (O(1) avg via HashMap)
+ * - search by IPK (via BST), incl. range / floor / ceiling queries
+ * - delete by NIM (removes from HashMap and BST)
+ * - inorder traversal of BST (students ascending by IPK)
+ * - Batch upload from .txt file (row by row, or bulk load that rebuilds the index once)
+ * - Save / load the whole database as a binary snapshot
+ * - Write-ahead log (students.wal) replayed on startup on top of students.snap
+ * - --storage=columnar|offheap: core menu options on the columnar or the
+ *   off-heap store (memory only)
+ *
+ * Compile: javac MainApp.java
+ * Run    : java MainApp [--storage=objects|columnar|offheap]
+ */
+public class MainApp 
+{
+    // ---- Student model ----
+    static class Student 
+    {
+        // shared dictionaries: every student stores small ids instead of its own strings
+        static final SymbolTable MAJORS = new SymbolTable();
+        static final SymbolTable COURSES = new SymbolTable();
+
+        // a numeric NIM is kept as a long and only turned back into text by nim()
+        final long nimKey; // NimTable.numericKey(nim), -1 when not numeric
+        private final String nimText; // null when numeric
+        String name;
+        int majorId; // id in MAJORS
+        int ipk; // hundredths, 3.75 -> 375
+        int rowId = -1; // dense id assigned by the owning StudentManager's CourseIndex
+        // index of this student inside its BST bucket, one per slot, so removal is O(1).
+        // Invariant: a student sits in at most one BST per slot, the manager's global
+        // tree (GLOBAL_SLOT) and its major's tree (MAJOR_SLOT); another tree holding
+        // the same students needs a slot of its own here.
+        static final int GLOBAL_SLOT = 0, MAJOR_SLOT = 1;
+        private int globalBucketPos = -1, majorBucketPos = -1;
+        // enrolled course ids (in COURSES), sorted ascending
+        private int[] courseIds = NO_COURSES;
+        private static final int[] NO_COURSES = new int[0];
+
+        public Student(String nim, String name, String major, int ipk) 
+        {
+            this.nimKey = NimTable.numericKey(nim);
+            this.nimText = nimKey < 0 ? nim : null;
+            this.name = name;
+            this.majorId = MAJORS.idOf(major);
+            this.ipk = ipk;
+        }
+
+        String nim()
+        {
+            return nimKey >= 0 ? Long.toString(nimKey) : nimText;
+        }
+
+        String major()
+        {
+            return MAJORS.get(majorId);
+        }
+
+        int bucketPos(int slot)
+        {
+            return slot == GLOBAL_SLOT ? globalBucketPos : majorBucketPos;
+        }
+
+        void setBucketPos(int slot, int pos)
+        {
+            if (slot == GLOBAL_SLOT) globalBucketPos = pos; else majorBucketPos = pos;
+        }
+
+        public synchronized void addCourses(String course)
+        {
+            addCourseId(COURSES.idOf(course));
+        }
+
+        public synchronized void addCourseId(int courseId)
+        {
+            int pos = Arrays.binarySearch(courseIds, courseId);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            int[] grown = new int[courseIds.length + 1];
+            System.arraycopy(courseIds, 0, grown, 0, pos);
+            grown[pos] = courseId;
+            System.arraycopy(courseIds, pos, grown, pos + 1, courseIds.length - pos);
+            courseIds = grown;
+        }
+
+        public synchronized int courseCount()
+        {
+            return courseIds.length;
+        }
+
+        // enrolled course ids, ascending
+        public synchronized int[] courseIds()
+        {
+            return courseIds.clone();
+        }
+
+        // course names in course id order (the order courses were first seen anywhere)
+        public synchronized List<String> courses()
+        {
+            List<String> names = new ArrayList<>(courseIds.length);
+            for (int courseId : courseIds) names.add(COURSES.get(courseId));
+            return names;
+        }
+
+        @Override
+        public synchronized String toString() 
+        {
+            List<String> courses = courses();
+            return String.format("NIM:%s | Name:%s | Jurusan:%s | IPK:%s | MK:%s",
+                    nim(), name, major(), formatIpk(ipk), courses.isEmpty() ? "Belum ada" : String.join(", ", courses));
+        }
+    }
+
+    // ---- IPK fixed-point helpers ----
+    static final int MAX_IPK = 400; // 4.00
+
+    /**
+     * Parse IPK text ("3.5", " 3.75 ", "4") straight into hundredths, third decimal
+     * rounding half-up; -1 if not a number in 0.00..4.00.
+     */
+    static int parseIpk(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        int whole = 0, frac = 0, fracDigits = 0;
+        boolean seenDot = false, seenDigit = false, roundUp = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (seenDot) return -1;
+                seenDot = true;
+                continue;
+            }
+            if (c < '0' || c > '9') return -1;
+            seenDigit = true;
+            int digit = c - '0';
+            if (!seenDot) {
+                whole = whole * 10 + digit;
+                if (whole > MAX_IPK / 100) return -1;
+            } else if (fracDigits < 2) {
+                frac = frac * 10 + digit;
+                fracDigits++;
+            } else if (fracDigits == 2) {
+                roundUp = digit >= 5;
+                fracDigits++;
+            }
+        }
+        if (!seenDigit) return -1;
+        if (fracDigits == 1) frac *= 10;
+        int value = whole * 100 + frac + (roundUp ? 1 : 0);
+        return value <= MAX_IPK ? value : -1;
+    }
+
+    static int parseIpk(CharSequence text) {
+        return parseIpk(text, 0, text.length());
+    }
+
+    // double -> hundredths (rounded), -1 if outside 0.00..4.00 or not a number
+    static int toHundredths(double ipk) {
+        if (!Double.isFinite(ipk)) return -1; // Math.round(NaN) would be 0
+        long value = Math.round(ipk * 100);
+        return value >= 0 && value <= MAX_IPK ? (int) value : -1;
+    }
+
+    static String formatIpk(int ipk) {
+        return String.format("%d.%02d", ipk / 100, ipk % 100);
+    }
+
+    // ---- Long-key open addressing, shared by the NIM tables ----
+    /**
+     * Linear probing with backward-shift delete over long keys, shared by every
+     * long-keyed table; each table exposes its own storage through Slots.
+     */
+    static final class LongProbe
+    {
+        static final float LOAD_FACTOR = 0.6f;
+
+        interface Slots
+        {
+            long slotCount();
+
+            boolean isUsed(long slot);
+
+            long keyAt(long slot);
+
+            // copy the entry in slot from into slot to
+            void moveSlot(long from, long to);
+
+            void freeSlot(long slot);
+        }
+
+        private LongProbe() { }
+
+        // power-of-two slot count that holds expectedSize keys under LOAD_FACTOR
+        static int capacityFor(int expectedSize) {
+            return Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        }
+
+        static long home(long key, long slotCount) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (h ^ (h >>> 32)) & (slotCount - 1);
+        }
+
+        // slot holding key, or the free slot where it would go
+        static long find(Slots table, long key) {
+            long mask = table.slotCount() - 1;
+            long i = home(key, table.slotCount());
+            while (table.isUsed(i) && table.keyAt(i) != key) i = (i + 1) & mask;
+            return i;
+        }
+
+        // empty a used slot: pull later entries of the probe run into the hole, then free the last hole
+        static void delete(Slots table, long slot) {
+            long mask = table.slotCount() - 1;
+            long hole = slot;
+            for (long j = (slot + 1) & mask; table.isUsed(j); j = (j + 1) & mask) {
+                long home = home(table.keyAt(j), table.slotCount());
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    table.moveSlot(j, hole);
+                    hole = j;
+                }
+            }
+            table.freeSlot(hole);
+        }
+    }
+
+    // ---- NIM table: open addressing on numeric NIMs ----
+    /**
+     * NIM -> Student map: canonical numeric NIMs as longs in an open-addressing
+     * table, any other NIM in a fallback HashMap. Values must be put under their
+     * own NIM. Not thread-safe.
+     */
+    static class NimTable extends AbstractMap<String, Student>
+    {
+        private long[] keys;
+        private Student[] values; // null = free slot
+        private int numericSize;
+        private final Map<String, Student> fallback = new HashMap<>();
+        private final LongProbe.Slots probe = new LongProbe.Slots() {
+            @Override
+            public long slotCount() {
+                return keys.length;
+            }
+
+            @Override
+            public boolean isUsed(long slot) {
+                return values[(int) slot] != null;
+            }
+
+            @Override
+            public long keyAt(long slot) {
+                return keys[(int) slot];
+            }
+
+            @Override
+            public void moveSlot(long from, long to) {
+                keys[(int) to] = keys[(int) from];
+                values[(int) to] = values[(int) from];
+            }
+
+            @Override
+            public void freeSlot(long slot) {
+                values[(int) slot] = null;
+            }
+        };
+
+        NimTable(int expectedSize)
+        {
+            int capacity = LongProbe.capacityFor(expectedSize);
+            keys = new long[capacity];
+            values = new Student[capacity];
+        }
+
+        // numeric value of a canonical numeric NIM, or -1 if it must use the fallback map
+        static long numericKey(Object key) {
+            if (!(key instanceof String)) return -1;
+            String nim = (String) key;
+            int len = nim.length();
+            if (len == 0 || len > 18 || (len > 1 && nim.charAt(0) == '0')) return -1;
+            long value = 0;
+            for (int i = 0; i < len; i++) {
+                char c = nim.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        // slot holding key, or the free slot where it would go
+        private int find(long key) {
+            return (int) LongProbe.find(probe, key);
+        }
+
+        @Override
+        public Student get(Object key) {
+            long k = numericKey(key);
+            if (k < 0) return fallback.get(key);
+            return values[find(k)];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Student put(String key, Student value) {
+            long k = numericKey(key);
+            if (value == null || value.nimKey != k || (k < 0 && !key.equals(value.nim()))) {
+                throw new IllegalArgumentException("NimTable values must be stored under their own NIM");
+            }
+            if (k < 0) return fallback.put(key, value);
+            int i = find(k);
+            Student old = values[i];
+            keys[i] = k;
+            values[i] = value;
+            if (old == null && ++numericSize > keys.length * LongProbe.LOAD_FACTOR) resize();
+            return old;
+        }
+
+        @Override
+        public Student remove(Object key) {
+            long k = numericKey(key);
+            if (k < 0) return fallback.remove(key);
+            int i = find(k);
+            Student old = values[i];
+            if (old == null) return null;
+            LongProbe.delete(probe, i);
+            numericSize--;
+            return old;
+        }
+
+        // grow once so expectedSize numeric NIMs fit, instead of doubling step by step
+        void ensureCapacity(int expectedSize) {
+            int capacity = keys.length;
+            while (expectedSize > capacity * LongProbe.LOAD_FACTOR) capacity <<= 1;
+            if (capacity > keys.length) resize(capacity);
+        }
+
+        private void resize() {
+            resize(keys.length << 1);
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Student[] oldValues = values;
+            keys = new long[capacity];
+            values = new Student[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) continue;
+                int j = find(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+
+        @Override
+        public int size() {
+            return numericSize + fallback.size();
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(values, null);
+            numericSize = 0;
+            fallback.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Student>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Student>>() {
+                @Override
+                public int size() {
+                    return NimTable.this.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Student>> iterator() {
+                    Iterator<Map.Entry<String, Student>> rest = fallback.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, Student>>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < values.length && values[from] == null) from++;
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length || rest.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Student> next() {
+                            if (next >= values.length) return rest.next();
+                            Student studentEntry = values[next];
+                            next = advance(next + 1);
+                            return new AbstractMap.SimpleImmutableEntry<>(studentEntry.nim(), studentEntry);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    // ---- IPK index (key = ipk in hundredths) ----
+    /**
+     * Ordered index from IPK to students, used by StudentManager. BST is the
+     * default (needs the manager's lock for writes); SkipListIpkIndex is safe
+     * for concurrent writers on its own (isConcurrent() == true).
+     */
+    interface IpkIndex
+    {
+        void insert(Student studentEntry);
+
+        // remove exactly this Student object (identity), if present
+        void remove(Student studentEntry);
+
+        List<Student> findByIpk(int ipk);
+
+        // hand the students with exactly this ipk to action, without copying the bucket
+        void forEachWithIpk(int ipk, Consumer<? super Student> action);
+
+        List<Student> floor(int ipk);
+
+        List<Student> ceiling(int ipk);
+
+        // lazy ascending iterator over lo <= ipk <= hi
+        Iterator<Student> range(int lo, int hi);
+
+        // the same students, highest IPK first
+        Iterator<Student> descendingRange(int lo, int hi);
+
+        List<Student> inorder();
+
+        // number of students held
+        int size();
+
+        // number of students with ipk < the given key
+        int countBelow(int ipk);
+
+        // the k-th student in ascending IPK order (0-based), or null if out of range
+        Student select(int k);
+
+        // replace the whole content; caller guarantees no concurrent access
+        void bulkLoad(Collection<Student> students);
+
+        // add / remove a batch of students (remove: identity, absent ones skipped)
+        default void insertAll(Collection<Student> students)
+        {
+            for (Student studentEntry : students) insert(studentEntry);
+        }
+
+        default void removeAll(Collection<Student> students)
+        {
+            for (Student studentEntry : students) remove(studentEntry);
+        }
+
+        // lazy, splittable ascending walk over lo <= ipk <= hi
+        default Spliterator<Student> spliterator(int lo, int hi)
+        {
+            return new IpkSpliterator(this, lo, hi);
+        }
+
+        boolean isConcurrent();
+    }
+
+    // ---- Splittable walk over an IpkIndex ----
+    /**
+     * Lazy spliterator over one IPK key range; trySplit halves the range by
+     * student count (select), sizes come from countBelow.
+     */
+    static class IpkSpliterator implements Spliterator<Student>
+    {
+        private final IpkIndex index;
+        private int lo, hi; // inclusive key range still owned
+        private Iterator<Student> it; // opened on first advance; no splitting after that
+        private long remaining = -1; // -1 = not computed yet
+
+        IpkSpliterator(IpkIndex index, int lo, int hi)
+        {
+            this.index = index;
+            this.lo = Math.max(0, lo);
+            this.hi = Math.min(MAX_IPK, hi);
+        }
+
+        @Override
+        public boolean tryAdvance(java.util.function.Consumer<? super Student> action) {
+            if (it == null) open();
+            if (!it.hasNext()) return false;
+            remaining--;
+            action.accept(it.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(java.util.function.Consumer<? super Student> action) {
+            if (it == null) open();
+            it.forEachRemaining(action);
+            remaining = 0;
+        }
+
+        private void open() {
+            estimateSize();
+            it = index.range(lo, hi);
+        }
+
+        @Override
+        public Spliterator<Student> trySplit() {
+            if (it != null || lo >= hi) return null;
+            int below = index.countBelow(lo);
+            int n = index.countBelow(hi + 1) - below;
+            if (n < 2) return null;
+            Student middle = index.select(below + n / 2);
+            // prefix gets [lo, mid]; the middle student's key starts this half
+            int mid = middle == null ? (lo + hi) >>> 1 : Math.max(lo, Math.min(hi - 1, middle.ipk - 1));
+            IpkSpliterator prefix = new IpkSpliterator(index, lo, mid);
+            lo = mid + 1;
+            remaining = -1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (remaining < 0) remaining = lo > hi ? 0 : index.countBelow(hi + 1) - index.countBelow(lo);
+            return Math.max(0, remaining);
+        }
+
+        @Override
+        public int characteristics() {
+            int base = ORDERED | NONNULL;
+            return index.isConcurrent() ? base | CONCURRENT : base | SIZED | SUBSIZED;
+        }
+    }
+
+    // ---- BST Node (key = ipk) ----
+    static class BSTNode 
+    {
+        int key; // ipk in hundredths
+        List<Student> students; // all students with this ipk
+        BSTNode left, right;
+        int height; // AVL height, leaf = 1
+        int count; // students in this subtree (order-statistic augmentation)
+
+        BSTNode(Student studentEntry) 
+        {
+            this.key = studentEntry.ipk;
+            this.students = new ArrayList<>();
+            this.students.add(studentEntry);
+            this.height = 1;
+            this.count = 1;
+        }
+
+        // empty bucket sized up front, used by the bulk builder
+        BSTNode(int key, int expectedStudents)
+        {
+            this.key = key;
+            this.students = new ArrayList<>(expectedStudents);
+            this.height = 1;
+        }
+    }
+
+    // ---- BST Manager ----
+    /**
+     * AVL tree keyed by IPK, so sorted input keeps depth O(log n). byKey gives O(1)
+     * exact lookups, subtree counts give rank / select, and Student.bucketPos makes
+     * remove(Student) an O(1) bucket swap plus one descent.
+     */
+    static class BST implements IpkIndex
+    {
+        private BSTNode root;
+        private final BSTNode[] byKey = new BSTNode[MAX_IPK + 1];
+        private int size;
+        private final int slot; // which Student.bucketPos this tree owns
+
+        public BST()
+        {
+            this(Student.GLOBAL_SLOT);
+        }
+
+        // slot: Student.GLOBAL_SLOT or Student.MAJOR_SLOT; a student may sit in one tree per slot
+        public BST(int slot)
+        {
+            this.slot = slot;
+        }
+
+        private void addToBucket(BSTNode node, Student studentEntry) {
+            studentEntry.setBucketPos(slot, node.students.size());
+            node.students.add(studentEntry);
+        }
+
+        // swap-remove: the bucket's last student takes the freed position
+        private void removeFromBucket(BSTNode node, int pos) {
+            List<Student> bucket = node.students;
+            Student last = bucket.remove(bucket.size() - 1);
+            if (pos < bucket.size()) {
+                bucket.set(pos, last);
+                last.setBucketPos(slot, pos);
+            }
+        }
+
+        @Override
+        public boolean isConcurrent() 
+        {
+            return false;
+        }
+
+        // insert student
+        public void insert(Student studentEntry) 
+        {
+            size++;
+            BSTNode node = byKey[studentEntry.ipk];
+            if (node != null) {
+                addToBucket(node, studentEntry); // existing key, shape unchanged
+                adjustCounts(studentEntry.ipk, 1);
+                return;
+            }
+            // new key: descend iteratively remembering the path, attach a leaf,
+            // then rebalance bottom-up along the same path
+            BSTNode[] path = new BSTNode[height(root)];
+            boolean[] wentLeft = new boolean[path.length];
+            int depth = 0;
+            for (BSTNode cur = root; cur != null; depth++) {
+                path[depth] = cur;
+                wentLeft[depth] = studentEntry.ipk < cur.key;
+                cur = wentLeft[depth] ? cur.left : cur.right;
+            }
+            BSTNode created = new BSTNode(studentEntry);
+            studentEntry.setBucketPos(slot, 0);
+            byKey[created.key] = created;
+            root = relink(path, wentLeft, depth, created);
+        }
+
+        /**
+         * Hang child under path[depth - 1], then rebalance every node up the path.
+         * Returns the new root; replaces recursive unwinding, so no stack is used.
+         */
+        private static BSTNode relink(BSTNode[] path, boolean[] wentLeft, int depth, BSTNode child)
+        {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (wentLeft[i]) path[i].left = child; else path[i].right = child;
+                child = rebalance(path[i]);
+            }
+            return child;
+        }
+
+        // find students by exact IPK
+        public List<Student> findByIpk(int ipk) 
+        {
+            BSTNode node = findNode(ipk);
+            return node == null ? Collections.emptyList() : new ArrayList<>(node.students);
+        }
+
+        @Override
+        public void forEachWithIpk(int ipk, Consumer<? super Student> action)
+        {
+            BSTNode node = findNode(ipk);
+            if (node != null) node.students.forEach(action);
+        }
+
+        // O(1) via the direct-address table
+        private BSTNode findNode(int ipk) 
+        {
+            return ipk >= 0 && ipk <= MAX_IPK ? byKey[ipk] : null;
+        }
+
+        @Override
+        public void remove(Student studentEntry) 
+        {
+            BSTNode node = findNode(studentEntry.ipk);
+            int pos = studentEntry.bucketPos(slot);
+            // the handle is only trusted if it really points at this student
+            if (node == null || pos < 0 || pos >= node.students.size() || node.students.get(pos) != studentEntry) return;
+            removeAt(node, pos);
+        }
+
+        // one pass: O(1) bucket removal, then either the count walk or the node deletion
+        private void removeAt(BSTNode node, int pos) {
+            Student removed = node.students.get(pos);
+            removeFromBucket(node, pos);
+            removed.setBucketPos(slot, -1);
+            size--;
+            if (node.students.isEmpty()) {
+                byKey[node.key] = null;
+                deleteKey(node.key);
+            } else {
+                adjustCounts(node.key, -1);
+            }
+        }
+
+        /**
+         * Batch insert: new IPKs first (the only inserts that rotate), then bucket
+         * appends and one count walk per distinct IPK.
+         */
+        @Override
+        public void insertAll(Collection<Student> students)
+        {
+            // new keys first, while every subtree count is still exact
+            BitSet placed = new BitSet(students.size());
+            int i = 0;
+            for (Student studentEntry : students) {
+                if (byKey[studentEntry.ipk] == null) {
+                    insert(studentEntry);
+                    placed.set(i);
+                }
+                i++;
+            }
+            int[] added = new int[MAX_IPK + 1];
+            i = 0;
+            for (Student studentEntry : students) {
+                if (placed.get(i++)) continue;
+                addToBucket(byKey[studentEntry.ipk], studentEntry);
+                added[studentEntry.ipk]++;
+            }
+            for (int key = 0; key <= MAX_IPK; key++) {
+                if (added[key] == 0) continue;
+                size += added[key];
+                adjustCounts(key, added[key]);
+            }
+        }
+
+        // batch remove: O(1) per student, then one count walk per IPK and one deletion per emptied IPK
+        @Override
+        public void removeAll(Collection<Student> students)
+        {
+            int[] removed = new int[MAX_IPK + 1];
+            for (Student studentEntry : students) {
+                BSTNode node = findNode(studentEntry.ipk);
+                int pos = studentEntry.bucketPos(slot);
+                if (node == null || pos < 0 || pos >= node.students.size() || node.students.get(pos) != studentEntry) continue;
+                removeFromBucket(node, pos);
+                studentEntry.setBucketPos(slot, -1);
+                removed[studentEntry.ipk]++;
+            }
+            // counts first: deleteKey rebuilds counts from the children, so they must be exact
+            for (int key = 0; key <= MAX_IPK; key++) {
+                if (removed[key] == 0) continue;
+                size -= removed[key];
+                adjustCounts(key, -removed[key]);
+            }
+            for (int key = 0; key <= MAX_IPK; key++) {
+                if (removed[key] == 0 || !byKey[key].students.isEmpty()) continue;
+                byKey[key] = null;
+                deleteKey(key);
+            }
+        }
+
+        // add delta to the subtree count of every node on the path to key
+        private void adjustCounts(int key, int delta) {
+            BSTNode node = root;
+            while (node != null) {
+                node.count += delta;
+                if (key == node.key) return;
+                node = key < node.key ? node.left : node.right;
+            }
+        }
+
+        // BST node deletion by key (iterative; path recorded for the rebalance walk)
+        private void deleteKey(int key) {
+            BSTNode[] path = new BSTNode[height(root)];
+            boolean[] wentLeft = new boolean[path.length];
+            int depth = 0;
+            BSTNode node = root;
+            while (node != null && node.key != key) {
+                path[depth] = node;
+                wentLeft[depth] = key < node.key;
+                node = wentLeft[depth++] ? node.left : node.right;
+            }
+            if (node == null) return;
+            if (node.left == null || node.right == null) {
+                root = relink(path, wentLeft, depth, node.left != null ? node.left : node.right);
+                return;
+            }
+            // two children: move the inorder successor (min in right) into this node,
+            // then splice the successor out of the right subtree
+            path[depth] = node;
+            wentLeft[depth++] = false;
+            BSTNode successorNode = node.right;
+            while (successorNode.left != null) {
+                path[depth] = successorNode;
+                wentLeft[depth++] = true;
+                successorNode = successorNode.left;
+            }
+            node.key = successorNode.key;
+            node.students = successorNode.students;
+            byKey[node.key] = node; // successor's key now lives in this node
+            root = relink(path, wentLeft, depth, successorNode.right);
+        }
+
+        // ---- AVL helpers ----
+        private static int height(BSTNode node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static int count(BSTNode node) {
+            return node == null ? 0 : node.count;
+        }
+
+        // recompute height and subtree count from the children
+        private static void update(BSTNode node) {
+            node.height = 1 + Math.max(height(node.left), height(node.right));
+            node.count = count(node.left) + node.students.size() + count(node.right);
+        }
+
+        private static BSTNode rotateRight(BSTNode node) {
+            BSTNode pivot = node.left;
+            node.left = pivot.right;
+            pivot.right = node;
+            update(node);
+            update(pivot);
+            return pivot;
+        }
+
+        private static BSTNode rotateLeft(BSTNode node) {
+            BSTNode pivot = node.right;
+            node.right = pivot.left;
+            pivot.left = node;
+            update(node);
+            update(pivot);
+            return pivot;
+        }
+
+        // restore |height(left) - height(right)| <= 1 at this node
+        private static BSTNode rebalance(BSTNode node) {
+            update(node);
+            int balance = height(node.left) - height(node.right);
+            if (balance > 1) {
+                if (height(node.left.left) < height(node.left.right)) {
+                    node.left = rotateLeft(node.left); // left-right case
+                }
+                return rotateRight(node);
+            }
+            if (balance < -1) {
+                if (height(node.right.right) < height(node.right.left)) {
+                    node.right = rotateRight(node.right); // right-left case
+                }
+                return rotateLeft(node);
+            }
+            return node;
+        }
+
+        // ---- Order statistics ----
+        @Override
+        public int countBelow(int ipk) {
+            int below = 0;
+            BSTNode node = root;
+            while (node != null) {
+                if (ipk <= node.key) {
+                    node = node.left;
+                } else {
+                    below += count(node.left) + node.students.size();
+                    node = node.right;
+                }
+            }
+            return below;
+        }
+
+        @Override
+        public Student select(int k) {
+            if (k < 0 || k >= count(root)) return null;
+            BSTNode node = root;
+            while (true) {
+                int left = count(node.left);
+                if (k < left) {
+                    node = node.left;
+                } else if (k < left + node.students.size()) {
+                    return node.students.get(k - left);
+                } else {
+                    k -= left + node.students.size();
+                    node = node.right;
+                }
+            }
+        }
+
+        // ---- Range / threshold queries ----
+        // students with greatest IPK <= ipk (empty if none)
+        public List<Student> floor(int ipk) {
+            BSTNode best = null;
+            BSTNode node = root;
+            while (node != null) {
+                if (node.key <= ipk) {
+                    best = node;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return best == null ? Collections.emptyList() : new ArrayList<>(best.students);
+        }
+
+        // students with smallest IPK >= ipk (empty if none)
+        public List<Student> ceiling(int ipk) {
+            BSTNode best = null;
+            BSTNode node = root;
+            while (node != null) {
+                if (node.key >= ipk) {
+                    best = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return best == null ? Collections.emptyList() : new ArrayList<>(best.students);
+        }
+
+        /**
+         * Lazy ascending iterator over students with lo <= ipk <= hi (inclusive,
+         * hundredths). Subtrees outside the range are never pushed, so a full walk
+         * costs O(log n + k). Use 0 / MAX_IPK for open-ended thresholds.
+         */
+        public Iterator<Student> range(int lo, int hi) {
+            return new RangeIterator(root, lo, hi, false);
+        }
+
+        // mirror image of range: seeks the largest key <= hi once, then walks down,
+        // each bucket back to front, so the k-th student out has rank size - k
+        public Iterator<Student> descendingRange(int lo, int hi) {
+            return new RangeIterator(root, lo, hi, true);
+        }
+
+        private static class RangeIterator implements Iterator<Student> {
+            private final Deque<BSTNode> stack = new ArrayDeque<>();
+            private final int lo, hi;
+            private final boolean descending;
+            private ListIterator<Student> bucket = Collections.emptyListIterator();
+
+            RangeIterator(BSTNode root, int lo, int hi, boolean descending) {
+                this.lo = lo;
+                this.hi = hi;
+                this.descending = descending;
+                pushSpine(root);
+            }
+
+            // push the spine towards the first key in walk order, skipping subtrees
+            // that lie entirely outside the range on that side
+            private void pushSpine(BSTNode node) {
+                while (node != null) {
+                    if (descending ? node.key <= hi : node.key >= lo) {
+                        stack.push(node);
+                        node = descending ? node.right : node.left;
+                    } else {
+                        node = descending ? node.left : node.right;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (descending ? !bucket.hasPrevious() : !bucket.hasNext()) {
+                    if (stack.isEmpty()) return false;
+                    BSTNode node = stack.pop();
+                    if (descending ? node.key < lo : node.key > hi) {
+                        stack.clear(); // everything left on the stack is further out
+                        return false;
+                    }
+                    bucket = descending ? node.students.listIterator(node.students.size()) : node.students.listIterator();
+                    pushSpine(descending ? node.left : node.right);
+                }
+                return true;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return descending ? bucket.previous() : bucket.next();
+            }
+        }
+
+        /**
+         * Replace the whole index in one pass: counting sort into byKey, then link
+         * the distinct keys into a balanced tree bottom-up.
+         */
+        public void bulkLoad(Collection<Student> students) {
+            int[] counts = new int[MAX_IPK + 1];
+            for (Student s : students) counts[s.ipk]++;
+
+            Arrays.fill(byKey, null);
+            List<BSTNode> nodes = new ArrayList<>();
+            for (int key = 0; key <= MAX_IPK; key++) {
+                if (counts[key] == 0) continue;
+                BSTNode node = new BSTNode(key, counts[key]);
+                byKey[key] = node;
+                nodes.add(node);
+            }
+            for (Student s : students) addToBucket(byKey[s.ipk], s);
+            root = buildBalanced(nodes, 0, nodes.size() - 1);
+            size = students.size();
+        }
+
+        // middle element becomes the root, halves become its subtrees. Explicit
+        // stack of [lo, hi] ranges; nodes are finished (height, count) in reverse
+        // creation order, i.e. children before their parent.
+        private static BSTNode buildBalanced(List<BSTNode> nodes, int lo, int hi) {
+            if (lo > hi) return null;
+            Deque<int[]> ranges = new ArrayDeque<>();
+            List<BSTNode> created = new ArrayList<>(hi - lo + 1);
+            ranges.push(new int[] { lo, hi });
+            while (!ranges.isEmpty()) {
+                int[] range = ranges.pop();
+                int mid = (range[0] + range[1]) >>> 1;
+                BSTNode node = nodes.get(mid);
+                node.left = range[0] < mid ? nodes.get((range[0] + mid - 1) >>> 1) : null;
+                node.right = mid < range[1] ? nodes.get((mid + 1 + range[1]) >>> 1) : null;
+                created.add(node);
+                if (range[0] < mid) ranges.push(new int[] { range[0], mid - 1 });
+                if (mid < range[1]) ranges.push(new int[] { mid + 1, range[1] });
+            }
+            for (int i = created.size() - 1; i >= 0; i--) update(created.get(i));
+            return nodes.get((lo + hi) >>> 1);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // tree height (0 = empty), useful to check the balance guarantee
+        public int height() {
+            return height(root);
+        }
+
+        // inorder traversal: returns ordered list of students (by ipk asc).
+        // Copies everything; prefer range() / spliterator() to stream instead.
+        public List<Student> inorder() {
+            List<Student> list = new ArrayList<>(size);
+            range(0, MAX_IPK).forEachRemaining(list::add); // explicit stack, no recursion
+            return list;
+        }
+    }
+
+    // ---- Compressed bitmap over int ids ----
+    /**
+     * Roaring-style int set: per high-16-bit container a sorted char[] (up to 4096
+     * values) or a 1024-word bitmap. Not thread-safe.
+     */
+    static class CompressedBitmap
+    {
+        private static final int ARRAY_MAX = 4096;
+
+        private char[] keys = new char[4]; // high 16 bits, ascending
+        private Object[] containers = new Object[4]; // char[] (sorted, length = size) or long[1024]
+        private int[] cardinalities = new int[4];
+        private int containerCount;
+
+        private int indexOf(char key) {
+            return Arrays.binarySearch(keys, 0, containerCount, key);
+        }
+
+        public boolean contains(int value) {
+            int i = indexOf((char) (value >>> 16));
+            if (i < 0) return false;
+            char low = (char) value;
+            Object c = containers[i];
+            if (c instanceof long[]) return (((long[]) c)[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch((char[]) c, 0, cardinalities[i], low) >= 0;
+        }
+
+        public void add(int value) {
+            if (value < 0) throw new IllegalArgumentException("negative id " + value);
+            char key = (char) (value >>> 16), low = (char) value;
+            int i = indexOf(key);
+            if (i < 0) {
+                i = -i - 1;
+                insertContainer(i, key, new char[4], 0);
+            }
+            Object c = containers[i];
+            if (c instanceof long[]) {
+                long[] words = (long[]) c;
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) {
+                    words[low >>> 6] |= bit;
+                    cardinalities[i]++;
+                }
+                return;
+            }
+            char[] values = (char[]) c;
+            int n = cardinalities[i];
+            int pos = Arrays.binarySearch(values, 0, n, low);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (n == ARRAY_MAX) {
+                long[] words = toWords(values, n);
+                words[low >>> 6] |= 1L << low;
+                containers[i] = words;
+            } else {
+                if (n == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));
+                    containers[i] = values;
+                }
+                System.arraycopy(values, pos, values, pos + 1, n - pos);
+                values[pos] = low;
+            }
+            cardinalities[i] = n + 1;
+        }
+
+        public void remove(int value) {
+            int i = indexOf((char) (value >>> 16));
+            if (i < 0) return;
+            char low = (char) value;
+            Object c = containers[i];
+            int n = cardinalities[i];
+            if (c instanceof long[]) {
+                long[] words = (long[]) c;
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) return;
+                words[low >>> 6] &= ~bit;
+                if (--n <= ARRAY_MAX) containers[i] = toValues(words, n);
+            } else {
+                char[] values = (char[]) c;
+                int pos = Arrays.binarySearch(values, 0, n, low);
+                if (pos < 0) return;
+                System.arraycopy(values, pos + 1, values, pos, n - pos - 1);
+                n--;
+            }
+            if (n == 0) {
+                removeContainer(i);
+            } else {
+                cardinalities[i] = n;
+            }
+        }
+
+        public int cardinality() {
+            int total = 0;
+            for (int i = 0; i < containerCount; i++) total += cardinalities[i];
+            return total;
+        }
+
+        public boolean isEmpty() {
+            return containerCount == 0;
+        }
+
+        public void forEach(IntConsumer action) {
+            for (int i = 0; i < containerCount; i++) {
+                int base = keys[i] << 16;
+                Object c = containers[i];
+                if (c instanceof long[]) {
+                    long[] words = (long[]) c;
+                    for (int w = 0; w < words.length; w++) {
+                        for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                            action.accept(base + (w << 6) + Long.numberOfTrailingZeros(bits));
+                        }
+                    }
+                } else {
+                    char[] values = (char[]) c;
+                    for (int k = 0; k < cardinalities[i]; k++) action.accept(base + values[k]);
+                }
+            }
+        }
+
+        public CompressedBitmap copy() {
+            CompressedBitmap result = new CompressedBitmap();
+            for (int i = 0; i < containerCount; i++) {
+                Object c = containers[i];
+                Object clone = c instanceof long[] ? ((long[]) c).clone() : Arrays.copyOf((char[]) c, cardinalities[i]);
+                result.insertContainer(result.containerCount, keys[i], clone, cardinalities[i]);
+            }
+            return result;
+        }
+
+        // values in both a and b
+        public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+            CompressedBitmap result = new CompressedBitmap();
+            int i = 0, j = 0;
+            while (i < a.containerCount && j < b.containerCount) {
+                if (a.keys[i] < b.keys[j]) {
+                    i++;
+                } else if (a.keys[i] > b.keys[j]) {
+                    j++;
+                } else {
+                    Object ca = a.containers[i], cb = b.containers[j];
+                    if (ca instanceof long[] && cb instanceof long[]) {
+                        long[] words = new long[1024];
+                        int n = 0;
+                        for (int w = 0; w < 1024; w++) n += Long.bitCount(words[w] = ((long[]) ca)[w] & ((long[]) cb)[w]);
+                        result.appendWords(a.keys[i], words, n);
+                    } else {
+                        // probe the array side against the other container
+                        boolean aIsArray = !(ca instanceof long[]);
+                        char[] probe = (char[]) (aIsArray ? ca : cb);
+                        int probeCount = aIsArray ? a.cardinalities[i] : b.cardinalities[j];
+                        CompressedBitmap other = aIsArray ? b : a;
+                        int base = a.keys[i] << 16;
+                        char[] values = new char[probeCount];
+                        int n = 0;
+                        for (int k = 0; k < probeCount; k++) {
+                            if (other.contains(base + probe[k])) values[n++] = probe[k];
+                        }
+                        if (n > 0) result.insertContainer(result.containerCount, a.keys[i], values, n);
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        // values in a or b
+        public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+            CompressedBitmap result = new CompressedBitmap();
+            int i = 0, j = 0;
+            while (i < a.containerCount || j < b.containerCount) {
+                if (j == b.containerCount || (i < a.containerCount && a.keys[i] < b.keys[j])) {
+                    result.appendCopy(a, i++);
+                } else if (i == a.containerCount || a.keys[i] > b.keys[j]) {
+                    result.appendCopy(b, j++);
+                } else {
+                    long[] words = a.words(i);
+                    long[] other = b.words(j);
+                    int n = 0;
+                    for (int w = 0; w < 1024; w++) n += Long.bitCount(words[w] |= other[w]);
+                    result.appendWords(a.keys[i], words, n);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        // container i as a fresh 1024-word bitmap
+        private long[] words(int i) {
+            Object c = containers[i];
+            return c instanceof long[] ? ((long[]) c).clone() : toWords((char[]) c, cardinalities[i]);
+        }
+
+        private void appendCopy(CompressedBitmap from, int i) {
+            Object c = from.containers[i];
+            Object clone = c instanceof long[] ? ((long[]) c).clone() : Arrays.copyOf((char[]) c, from.cardinalities[i]);
+            insertContainer(containerCount, from.keys[i], clone, from.cardinalities[i]);
+        }
+
+        private void appendWords(char key, long[] words, int n) {
+            if (n == 0) return;
+            insertContainer(containerCount, key, n <= ARRAY_MAX ? toValues(words, n) : words, n);
+        }
+
+        private static long[] toWords(char[] values, int n) {
+            long[] words = new long[1024];
+            for (int k = 0; k < n; k++) words[values[k] >>> 6] |= 1L << values[k];
+            return words;
+        }
+
+        private static char[] toValues(long[] words, int n) {
+            char[] values = new char[Math.max(1, n)];
+            int k = 0;
+            for (int w = 0; w < words.length; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) values[k++] = (char) ((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            return values;
+        }
+
+        private void insertContainer(int i, char key, Object container, int cardinality) {
+            if (containerCount == keys.length) {
+                keys = Arrays.copyOf(keys, containerCount * 2);
+                containers = Arrays.copyOf(containers, containerCount * 2);
+                cardinalities = Arrays.copyOf(cardinalities, containerCount * 2);
+            }
+            System.arraycopy(keys, i, keys, i + 1, containerCount - i);
+            System.arraycopy(containers, i, containers, i + 1, containerCount - i);
+            System.arraycopy(cardinalities, i, cardinalities, i + 1, containerCount - i);
+            keys[i] = key;
+            containers[i] = container;
+            cardinalities[i] = cardinality;
+            containerCount++;
+        }
+
+        private void removeContainer(int i) {
+            System.arraycopy(keys, i + 1, keys, i, containerCount - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, containerCount - i - 1);
+            System.arraycopy(cardinalities, i + 1, cardinalities, i, containerCount - i - 1);
+            containers[--containerCount] = null;
+        }
+    }
+
+    // ---- Course -> students inverted index ----
+    /**
+     * Per course id, a CompressedBitmap of the enrolled students' row ids
+     * (Student.rowId, dense and reused). Synchronized.
+     */
+    static class CourseIndex
+    {
+        private Student[] rows = new Student[16];
+        private int rowCount; // row ids handed out so far
+        private int[] freeRows = new int[16];
+        private int freeCount;
+        private CompressedBitmap[] byCourse = new CompressedBitmap[16]; // index = course id
+
+        // give studentEntry a row id and index the courses it already has
+        synchronized void register(Student studentEntry) {
+            int row;
+            if (freeCount > 0) {
+                row = freeRows[--freeCount];
+            } else {
+                row = rowCount++;
+                if (row == rows.length) rows = Arrays.copyOf(rows, row * 2);
+            }
+            rows[row] = studentEntry;
+            studentEntry.rowId = row;
+            for (int courseId : studentEntry.courseIds()) bitmap(courseId).add(row);
+        }
+
+        synchronized void unregister(Student studentEntry) {
+            int row = studentEntry.rowId;
+            if (row < 0 || row >= rowCount || rows[row] != studentEntry) return;
+            for (int courseId : studentEntry.courseIds()) {
+                if (courseId < byCourse.length && byCourse[courseId] != null) byCourse[courseId].remove(row);
+            }
+            rows[row] = null;
+            studentEntry.rowId = -1;
+            if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            freeRows[freeCount++] = row;
+        }
+
+        synchronized void enroll(Student studentEntry, int courseId) {
+            if (studentEntry.rowId >= 0) bitmap(courseId).add(studentEntry.rowId);
+        }
+
+        private CompressedBitmap bitmap(int courseId) {
+            if (courseId >= byCourse.length) byCourse = Arrays.copyOf(byCourse, Math.max(courseId + 1, byCourse.length * 2));
+            if (byCourse[courseId] == null) byCourse[courseId] = new CompressedBitmap();
+            return byCourse[courseId];
+        }
+
+        // drop everything and index these students from scratch
+        synchronized void rebuild(Collection<Student> students) {
+            rows = new Student[Math.max(16, students.size())];
+            rowCount = 0;
+            freeCount = 0;
+            byCourse = new CompressedBitmap[byCourse.length];
+            for (Student studentEntry : students) register(studentEntry);
+        }
+
+        private CompressedBitmap enrolled(int courseId) {
+            if (courseId < 0 || courseId >= byCourse.length || byCourse[courseId] == null) return new CompressedBitmap();
+            return byCourse[courseId];
+        }
+
+        // students enrolled in all (matchAll) or any of the course ids, in row id order; -1 = unknown course
+        synchronized List<Student> query(int[] courseIds, boolean matchAll) {
+            CompressedBitmap hits = matching(courseIds, matchAll);
+            List<Student> list = new ArrayList<>(hits == null ? 0 : hits.cardinality());
+            if (hits != null) hits.forEach(row -> list.add(rows[row]));
+            return list;
+        }
+
+        // same students as query, handed to action one by one; runs under this index's monitor
+        synchronized void forEach(int[] courseIds, boolean matchAll, Consumer<? super Student> action) {
+            CompressedBitmap hits = matching(courseIds, matchAll);
+            if (hits != null) hits.forEach(row -> action.accept(rows[row]));
+        }
+
+        private CompressedBitmap matching(int[] courseIds, boolean matchAll) {
+            CompressedBitmap hits = null;
+            for (int courseId : courseIds) {
+                CompressedBitmap enrolled = enrolled(courseId);
+                if (hits == null) hits = enrolled;
+                else hits = matchAll ? CompressedBitmap.and(hits, enrolled) : CompressedBitmap.or(hits, enrolled);
+            }
+            return hits;
+        }
+    }
+
+    // ---- Concurrent skip-list IPK index ----
+    /**
+     * IpkIndex for concurrent writers: a ConcurrentSkipListMap of concurrent sets.
+     * Buckets are never removed (at most 401), iteration is weakly consistent.
+     * Slower than BST on every operation, see StudentManager.
+     */
+    static class SkipListIpkIndex implements IpkIndex
+    {
+        private final ConcurrentSkipListMap<Integer, Set<Student>> buckets = new ConcurrentSkipListMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        @Override
+        public boolean isConcurrent()
+        {
+            return true;
+        }
+
+        @Override
+        public void insert(Student studentEntry)
+        {
+            if (buckets.computeIfAbsent(studentEntry.ipk, key -> ConcurrentHashMap.newKeySet()).add(studentEntry)) {
+                size.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void remove(Student studentEntry)
+        {
+            Set<Student> bucket = buckets.get(studentEntry.ipk);
+            if (bucket != null && bucket.remove(studentEntry)) size.decrementAndGet();
+        }
+
+        @Override
+        public List<Student> findByIpk(int ipk)
+        {
+            Set<Student> bucket = buckets.get(ipk);
+            return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
+        }
+
+        @Override
+        public void forEachWithIpk(int ipk, Consumer<? super Student> action)
+        {
+            Set<Student> bucket = buckets.get(ipk);
+            if (bucket != null) bucket.forEach(action);
+        }
+
+        @Override
+        public List<Student> floor(int ipk)
+        {
+            return firstNonEmpty(buckets.headMap(ipk, true).descendingMap().values());
+        }
+
+        @Override
+        public List<Student> ceiling(int ipk)
+        {
+            return firstNonEmpty(buckets.tailMap(ipk, true).values());
+        }
+
+        private static List<Student> firstNonEmpty(Collection<Set<Student>> candidates)
+        {
+            for (Set<Student> bucket : candidates) {
+                List<Student> copy = new ArrayList<>(bucket);
+                if (!copy.isEmpty()) return copy;
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Iterator<Student> range(int lo, int hi)
+        {
+            if (lo > hi) return Collections.emptyIterator();
+            return flatten(buckets.subMap(lo, true, hi, true).values().iterator());
+        }
+
+        @Override
+        public Iterator<Student> descendingRange(int lo, int hi)
+        {
+            if (lo > hi) return Collections.emptyIterator();
+            return flatten(buckets.subMap(lo, true, hi, true).descendingMap().values().iterator());
+        }
+
+        private static Iterator<Student> flatten(Iterator<Set<Student>> sets)
+        {
+            return new Iterator<Student>() {
+                private Iterator<Student> bucket = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext()
+                {
+                    while (!bucket.hasNext()) {
+                        if (!sets.hasNext()) return false;
+                        bucket = sets.next().iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public Student next()
+                {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return bucket.next();
+                }
+            };
+        }
+
+        @Override
+        public List<Student> inorder()
+        {
+            List<Student> list = new ArrayList<>();
+            for (Set<Student> bucket : buckets.values()) list.addAll(bucket);
+            return list;
+        }
+
+        @Override
+        public int size()
+        {
+            return size.get();
+        }
+
+        // walks the buckets below ipk: O(distinct IPKs), at most MAX_IPK + 1
+        @Override
+        public int countBelow(int ipk)
+        {
+            int below = 0;
+            for (Set<Student> bucket : buckets.headMap(ipk, false).values()) below += bucket.size();
+            return below;
+        }
+
+        @Override
+        public Student select(int k)
+        {
+            if (k < 0) return null;
+            for (Set<Student> bucket : buckets.values()) {
+                int n = bucket.size();
+                if (k >= n) {
+                    k -= n;
+                    continue;
+                }
+                for (Student studentEntry : bucket) {
+                    if (k-- == 0) return studentEntry;
+                }
+                k = 0; // bucket shrank under us: take the next student after it
+            }
+            return null;
+        }
+
+        @Override
+        public void bulkLoad(Collection<Student> students)
+        {
+            buckets.clear();
+            size.set(0);
+            for (Student studentEntry : students) insert(studentEntry);
+        }
+    }
+
+    // ------------------- Weighted Graph for Majors -------------------
+    static class WeightedGraph 
+    {
+        private Map<String, List<Edge>> adj = new HashMap<>();
+
+        static class Edge 
+        {
+            String to;
+            int weight;
+            Edge(String t, int w) { to = t; weight = w; }
+        }
+
+        public void addNode(String node) 
+        {
+            adj.putIfAbsent(node, new ArrayList<>());
+        }
+
+        public void addEdge(String from, String to, int weight) 
+        {
+            addNode(from);
+            addNode(to);
+            adj.get(from).add(new Edge(to, weight));
+            adj.get(to).add(new Edge(from, weight));
+        }
+
+        public void printGraph() 
+        {
+            for (String node : adj.keySet()) {
+                StringBuilder sb = new StringBuilder(node + " -> ");
+                for (Edge e : adj.get(node)) {
+                    sb.append(e.to).append("(").append(e.weight).append(") ");
+                }
+                System.out.println(sb);
+            }
+        }
+
+        public List<String> bfs(String start) 
+        {
+            List<String> visited = new ArrayList<>();
+            if (!adj.containsKey(start)) return visited;
+            Queue<String> q = new LinkedList<>();
+            Set<String> seen = new HashSet<>();
+            q.add(start);
+            seen.add(start);
+            while (!q.isEmpty()) {
+                String cur = q.poll();
+                visited.add(cur);
+                for (Edge e : adj.get(cur)) 
+                {
+                    if (!seen.contains(e.to)) 
+                    {
+                        seen.add(e.to);
+                        q.add(e.to);
+                    }
+                }
+            }
+            return visited;
+        }
+
+        public PathResult shortestPath(String source, String target) 
+        {
+            Map<String, Integer> dist = new HashMap<>();
+            Map<String, String> prev = new HashMap<>();
+            for (String node : adj.keySet()) 
+            {
+                dist.put(node, Integer.MAX_VALUE / 2);
+            }
+            dist.put(source, 0);
+
+            PriorityQueue<Map.Entry<String, Integer>> pq =
+                    new PriorityQueue<>(Comparator.comparingInt(Map.Entry::getValue));
+            pq.add(new AbstractMap.SimpleEntry<>(source, 0));
+
+            while (!pq.isEmpty()) 
+            {
+                Map.Entry<String, Integer> current = pq.poll();
+                String u = current.getKey();
+                int d = current.getValue();
+
+                if (d > dist.get(u)) continue;
+                if (u.equals(target)) break;
+
+                for (Edge e : adj.get(u)) 
+                {
+                    int nd = d + e.weight;
+                    if (nd < dist.get(e.to)) 
+                    {
+                        dist.put(e.to, nd);
+                        prev.put(e.to, u);
+                        pq.add(new AbstractMap.SimpleEntry<>(e.to, nd));
+                    }
+                }
+            }
+
+            List<String> path = new LinkedList<>();
+            String cur = target;
+            if (!prev.containsKey(target) && !source.equals(target)) 
+            {
+                return new PathResult(Collections.emptyList(), -1);
+            }
+            while (cur != null) 
+            {
+                path.add(0, cur);
+                cur = prev.get(cur);
+            }
+            return new PathResult(path, dist.get(target));
+        }
+    }
+
+    static class PathResult 
+    {
+        List<String> path;
+        int totalWeight;
+        PathResult(List<String> path, int totalWeight) 
+        {
+            this.path = path;
+            this.totalWeight = totalWeight;
+        }
+    }
+
+    // ------------------- Import report -------------------
+    /**
+     * Outcome of a file import: rows imported, rows rejected per reason, the
+     * first few offending lines (1-based line numbers) and the elapsed time.
+     * Imports never print; callers decide whether to show this via print().
+     */
+    static class ImportResult
+    {
+        enum Reason
+        {
+            BAD_COLUMN_COUNT("Invalid format"),
+            BAD_IPK("Invalid IPK format"),
+            DUPLICATE_NIM("NIM already exists");
+
+            final String label;
+
+            Reason(String label) { this.label = label; }
+        }
+
+        static class Sample
+        {
+            final long lineNumber;
+            final Reason reason;
+            final String line;
+
+            Sample(long lineNumber, Reason reason, String line)
+            {
+                this.lineNumber = lineNumber;
+                this.reason = reason;
+                this.line = line;
+            }
+        }
+
+        static final int DEFAULT_MAX_SAMPLES = 10;
+
+        final int maxSamples;
+        long imported;
+        final long[] rejected = new long[Reason.values().length];
+        final List<Sample> samples = new ArrayList<>(); // ascending line number
+        long elapsedNanos;
+        IOException error; // set when the file could not be read at all
+
+        ImportResult() { this(DEFAULT_MAX_SAMPLES); }
+
+        ImportResult(int maxSamples) { this.maxSamples = maxSamples; }
+
+        // true while another sample would still be kept (lets callers skip building the line text)
+        boolean wantsSample()
+        {
+            return samples.size() < maxSamples;
+        }
+
+        void reject(Reason reason, long lineNumber, String line)
+        {
+            rejected[reason.ordinal()]++;
+            if (wantsSample()) samples.add(new Sample(lineNumber, reason, line));
+        }
+
+        // fold in a later part of the same file whose line numbers start after lineOffset
+        void merge(ImportResult other, long lineOffset)
+        {
+            imported += other.imported;
+            for (int i = 0; i < rejected.length; i++) rejected[i] += other.rejected[i];
+            for (Sample sample : other.samples) {
+                if (!wantsSample()) break;
+                samples.add(new Sample(sample.lineNumber + lineOffset, sample.reason, sample.line));
+            }
+        }
+
+        long rejected(Reason reason)
+        {
+            return rejected[reason.ordinal()];
+        }
+
+        long totalRejected()
+        {
+            long total = 0;
+            for (long count : rejected) total += count;
+            return total;
+        }
+
+        void print(java.io.PrintStream out)
+        {
+            if (error != null) {
+                out.println(">> ERROR: File not found or cannot be read -> " + error.getMessage());
+                return;
+            }
+            out.println(">> Imported: " + imported + ", skipped: " + totalRejected());
+            for (Reason reason : Reason.values()) {
+                if (rejected(reason) > 0) out.println(">>   " + reason.label + ": " + rejected(reason));
+            }
+            for (Sample sample : samples) {
+                out.println(">>   line " + sample.lineNumber + " [" + sample.reason.label + "] -> " + sample.line);
+            }
+            if (totalRejected() > samples.size()) {
+                out.println(">>   ... " + (totalRejected() - samples.size()) + " more skipped line(s) not shown");
+            }
+        }
+    }
+
+    // ------------------- Parallel Import -------------------
+    /**
+     * Parses a student file in newline-aligned byte ranges on a ForkJoinPool and
+     * merges the results in file order, so the first NIM in the file still wins.
+     */
+    static class ParallelImporter
+    {
+        static final int CHUNK_BYTES = 8 << 20; // upper bound per task (plus one line)
+
+        static class ChunkResult
+        {
+            final List<Student> students = new ArrayList<>();
+            long[] lineNumbers = new long[16]; // line of students.get(i)
+            long lineCount;
+            final ImportResult report;
+
+            ChunkResult(int maxSamples) { report = new ImportResult(maxSamples); }
+
+            void add(Student studentEntry, long lineNumber)
+            {
+                if (students.size() == lineNumbers.length) {
+                    lineNumbers = Arrays.copyOf(lineNumbers, lineNumbers.length * 2);
+                }
+                lineNumbers[students.size()] = lineNumber;
+                students.add(studentEntry);
+            }
+        }
+
+        static ChunkResult parse(Path path, int parallelism, int maxSamples) throws IOException
+        {
+            List<ChunkResult> chunks;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long[] bounds = chunkBounds(channel, CHUNK_BYTES);
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    chunks = pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1, maxSamples));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            // chunk-local line numbers -> file line numbers
+            ChunkResult all = new ChunkResult(maxSamples);
+            for (ChunkResult chunk : chunks) {
+                for (int i = 0; i < chunk.students.size(); i++) {
+                    all.add(chunk.students.get(i), chunk.lineNumbers[i] + all.lineCount);
+                }
+                all.report.merge(chunk.report, all.lineCount);
+                all.lineCount += chunk.lineCount;
+            }
+            return all;
+        }
+
+        // offsets 0 = b[0] < b[1] < ... < b[k] = size, every b[i] a line start
+        static long[] chunkBounds(FileChannel channel, long chunkBytes) throws IOException
+        {
+            long size = channel.size();
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            long pos = chunkBytes;
+            while (pos < size) {
+                long lineStart = nextLineStart(channel, pos, size, probe);
+                if (lineStart >= size) break;
+                bounds.add(lineStart);
+                pos = lineStart + chunkBytes;
+            }
+            bounds.add(size);
+            long[] out = new long[bounds.size()];
+            for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+            return out;
+        }
+
+        // first offset >= pos that starts a line (byte before it is '\n'), or size
+        static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException
+        {
+            long at = pos - 1;
+            while (at < size) {
+                probe.clear();
+                int n = channel.read(probe, at);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') return at + i + 1;
+                }
+                at += n;
+            }
+            return size;
+        }
+
+        // splits the chunk index range in halves until a single chunk is left
+        private static class ChunkTask extends RecursiveTask<List<ChunkResult>>
+        {
+            private static final long serialVersionUID = 1L; // never serialized; RecursiveTask is Serializable
+
+            private final FileChannel channel;
+            private final long[] bounds;
+            private final int from, to; // chunk indexes [from, to)
+            private final int maxSamples;
+
+            ChunkTask(FileChannel channel, long[] bounds, int from, int to, int maxSamples)
+            {
+                this.channel = channel;
+                this.bounds = bounds;
+                this.from = from;
+                this.to = to;
+                this.maxSamples = maxSamples;
+            }
+
+            @Override
+            protected List<ChunkResult> compute()
+            {
+                if (to - from <= 1) {
+                    List<ChunkResult> single = new ArrayList<>(1);
+                    if (to > from) single.add(parseChunk(channel, bounds[from], bounds[to], maxSamples));
+                    return single;
+                }
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(channel, bounds, from, mid, maxSamples);
+                left.fork();
+                List<ChunkResult> right = new ChunkTask(channel, bounds, mid, to, maxSamples).compute();
+                List<ChunkResult> result = left.join();
+                result.addAll(right);
+                return result;
+            }
+        }
+
+        private static ChunkResult parseChunk(FileChannel channel, long start, long end, int maxSamples)
+        {
+            ChunkResult out = new ChunkResult(maxSamples);
+            MappedCsvReader reader = new MappedCsvReader();
+            try {
+                reader.read(channel, start, end, new MappedCsvReader.RowSink() {
+                    @Override
+                    public void row(String nim, String name, String major, int ipk, long lineNumber) {
+                        out.add(new Student(nim, name, major, ipk), lineNumber);
+                    }
+
+                    @Override
+                    public void rejected(ImportResult.Reason reason, long lineNumber, MappedCsvReader source) {
+                        out.report.reject(reason, lineNumber, out.report.wantsSample() ? source.currentLine() : null);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.lineCount = reader.lineNumber;
+            return out;
+        }
+    }
+
+    // ------------------- Memory-mapped CSV reader -------------------
+    /**
+     * Reads "NIM,Name,Jurusan,IPK" rows straight from a MappedByteBuffer; only the
+     * NIM and name Strings are created per row. One reader per thread.
+     */
+    static class MappedCsvReader
+    {
+        interface RowSink
+        {
+            void row(String nim, String name, String major, int ipk, long lineNumber);
+
+            // reason is BAD_COLUMN_COUNT or BAD_IPK; source.currentLine() has the text if needed
+            void rejected(ImportResult.Reason reason, long lineNumber, MappedCsvReader source);
+        }
+
+        private final ByteSlice slice = new ByteSlice();
+        private final ByteInterner majors = new ByteInterner();
+        private byte[] scratch = new byte[64];
+        long lineNumber; // lines consumed so far (1-based number of the current line)
+        private int lineStart, lineEnd; // current line inside slice.buf, without '\r\n'
+
+        // whole file, mapped window by window (a single map is capped at 2 GB)
+        static void readFile(Path path, RowSink sink) throws IOException
+        {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long[] bounds = ParallelImporter.chunkBounds(channel, ParallelImporter.CHUNK_BYTES);
+                MappedCsvReader reader = new MappedCsvReader();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    reader.read(channel, bounds[i], bounds[i + 1], sink);
+                }
+            }
+        }
+
+        // rows in [start, end); start must be a line start
+        void read(FileChannel channel, long start, long end, RowSink sink) throws IOException
+        {
+            if (end <= start) return;
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            slice.buf = buf;
+            int limit = buf.limit();
+            int next = 0;
+            while (next < limit) {
+                int lineStart = next;
+                int c1 = -1, c2 = -1, c3 = -1, commas = 0;
+                int i = lineStart;
+                for (; i < limit; i++) {
+                    byte b = buf.get(i);
+                    if (b == '\n') break;
+                    if (b == ',') {
+                        commas++;
+                        if (commas == 1) c1 = i;
+                        else if (commas == 2) c2 = i;
+                        else if (commas == 3) c3 = i;
+                    }
+                }
+                int contentEnd = i > lineStart && buf.get(i - 1) == '\r' ? i - 1 : i;
+                next = i + 1;
+                lineNumber++;
+                this.lineStart = lineStart;
+                this.lineEnd = contentEnd;
+                if (commas != 3) {
+                    sink.rejected(ImportResult.Reason.BAD_COLUMN_COUNT, lineNumber, this);
+                } else {
+                    int ipk = parseIpk(slice, c3 + 1, contentEnd);
+                    if (ipk < 0) {
+                        sink.rejected(ImportResult.Reason.BAD_IPK, lineNumber, this);
+                    } else {
+                        sink.row(field(buf, lineStart, c1), field(buf, c1 + 1, c2),
+                                majors.intern(buf, trimStart(buf, c2 + 1, c3), trimEnd(buf, c2 + 1, c3)), ipk,
+                                lineNumber);
+                    }
+                }
+            }
+            slice.buf = null;
+        }
+
+        // text of the line being reported; only valid inside a RowSink callback
+        String currentLine()
+        {
+            return decode(slice.buf, lineStart, lineEnd);
+        }
+
+        private static int trimStart(ByteBuffer buf, int start, int end)
+        {
+            while (start < end && (buf.get(start) & 0xFF) <= ' ') start++;
+            return start;
+        }
+
+        private static int trimEnd(ByteBuffer buf, int start, int end)
+        {
+            while (end > start && (buf.get(end - 1) & 0xFF) <= ' ') end--;
+            return end;
+        }
+
+        private String field(ByteBuffer buf, int start, int end)
+        {
+            return decode(buf, trimStart(buf, start, end), trimEnd(buf, start, end));
+        }
+
+        // one copy into the reusable scratch array, one String
+        private String decode(ByteBuffer buf, int start, int end)
+        {
+            int len = end - start;
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(start, scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        // lets parseIpk read bytes in place; only ASCII digits and '.' matter there
+        private static class ByteSlice implements CharSequence
+        {
+            ByteBuffer buf;
+
+            @Override
+            public char charAt(int index) { return (char) (buf.get(index) & 0xFF); }
+
+            @Override
+            public int length() { return buf.limit(); }
+
+            @Override
+            public CharSequence subSequence(int start, int end) { throw new UnsupportedOperationException(); }
+        }
+
+        /**
+         * Byte range -> canonical String; a hit allocates nothing, a miss decodes once
+         * and interns.
+         */
+        private static class ByteInterner
+        {
+            private byte[][] keys = new byte[16][];
+            private String[] values = new String[16];
+            private int size;
+
+            String intern(ByteBuffer buf, int start, int end)
+            {
+                int hash = 1;
+                for (int i = start; i < end; i++) hash = 31 * hash + buf.get(i);
+                int mask = keys.length - 1;
+                int slot = mix(hash) & mask;
+                while (keys[slot] != null) {
+                    if (matches(keys[slot], buf, start, end)) return values[slot];
+                    slot = (slot + 1) & mask;
+                }
+                byte[] key = new byte[end - start];
+                buf.get(start, key, 0, key.length);
+                keys[slot] = key;
+                values[slot] = new String(key, StandardCharsets.UTF_8).intern();
+                String value = values[slot];
+                if (++size * 2 > keys.length) grow();
+                return value;
+            }
+
+            private static int mix(int hash)
+            {
+                return hash ^ (hash >>> 16);
+            }
+
+            private static boolean matches(byte[] key, ByteBuffer buf, int start, int end)
+            {
+                if (key.length != end - start) return false;
+                for (int i = 0; i < key.length; i++) {
+                    if (key[i] != buf.get(start + i)) return false;
+                }
+                return true;
+            }
+
+            private void grow()
+            {
+                byte[][] oldKeys = keys;
+                String[] oldValues = values;
+                keys = new byte[oldKeys.length * 2][];
+                values = new String[oldKeys.length * 2];
+                int mask = keys.length - 1;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] == null) continue;
+                    int hash = 1;
+                    for (byte b : oldKeys[i]) hash = 31 * hash + b;
+                    int slot = mix(hash) & mask;
+                    while (keys[slot] != null) slot = (slot + 1) & mask;
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    // ------------------- File tailing -------------------
+    /**
+     * Follows a growing data file: a watcher thread imports each new complete line
+     * into the StudentManager; takeReport() hands the owner the merged report.
+     */
+    static class FileTailer implements AutoCloseable
+    {
+        private final Path file;
+        private final WatchService watchService;
+        private final Thread watcher;
+        private final MappedCsvReader reader = new MappedCsvReader(); // line numbers carry over between reads
+        private final StudentManager mgr;
+        private long offset; // bytes consumed so far, always at a line start
+        private ImportResult unreported; // applied since the last takeReport(), null = nothing
+
+        FileTailer(Path file, boolean fromStart, StudentManager mgr) throws IOException
+        {
+            this.file = file.toAbsolutePath();
+            this.mgr = mgr;
+            if (fromStart) {
+                offset = 0;
+            } else {
+                // skip what is there, but leave an unterminated last line to be read once it is completed
+                try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+                    offset = lastLineEnd(channel, 0, channel.size());
+                    reader.lineNumber = countLines(channel, offset);
+                }
+            }
+            watchService = this.file.getFileSystem().newWatchService();
+            this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watcher = new Thread(this::watchLoop, "file-tailer");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+
+        Path file() { return file; }
+
+        synchronized long offset() { return offset; }
+
+        private void watchLoop()
+        {
+            try {
+                poll(); // whatever is already past the offset
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || file.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    if (changed) poll();
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                // close() was called
+            }
+        }
+
+        // parse and insert everything appended since the last call; watcher thread only
+        private void poll()
+        {
+            ParallelImporter.ChunkResult batch = new ParallelImporter.ChunkResult(ImportResult.DEFAULT_MAX_SAMPLES);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long start;
+                synchronized (this) {
+                    if (size < offset) { // truncated or replaced: start over
+                        offset = 0;
+                        reader.lineNumber = 0;
+                    }
+                    start = offset;
+                }
+                long end = lastLineEnd(channel, start, size);
+                ByteBuffer probe = ByteBuffer.allocate(4096);
+                MappedCsvReader.RowSink sink = new MappedCsvReader.RowSink() {
+                    @Override
+                    public void row(String nim, String name, String major, int ipk, long lineNumber) {
+                        batch.add(new Student(nim, name, major, ipk), lineNumber);
+                    }
+
+                    @Override
+                    public void rejected(ImportResult.Reason reason, long lineNumber, MappedCsvReader source) {
+                        batch.report.reject(reason, lineNumber, batch.report.wantsSample() ? source.currentLine() : null);
+                    }
+                };
+                // map at most CHUNK_BYTES (plus one line) at a time
+                for (long pos = start; pos < end; ) {
+                    long windowEnd = Math.min(end,
+                            ParallelImporter.nextLineStart(channel, pos + ParallelImporter.CHUNK_BYTES, end, probe));
+                    reader.read(channel, pos, windowEnd, sink);
+                    pos = windowEnd;
+                }
+                synchronized (this) {
+                    offset = end;
+                }
+            } catch (IOException e) {
+                batch.report.error = e;
+            }
+            if (batch.students.isEmpty() && batch.report.totalRejected() == 0 && batch.report.error == null) return;
+
+            long t0 = System.nanoTime();
+            ImportResult result = batch.report;
+            for (int i = 0; i < batch.students.size(); i++) {
+                Student s = batch.students.get(i);
+                if (mgr.addStudent(s)) {
+                    result.imported++;
+                } else {
+                    result.reject(ImportResult.Reason.DUPLICATE_NIM, batch.lineNumbers[i],
+                            result.wantsSample() ? StudentManager.rowText(s.nim(), s.name, s.major(), s.ipk) : null);
+                }
+            }
+            mgr.syncLog();
+            result.samples.sort(Comparator.comparingLong(sample -> sample.lineNumber));
+            result.elapsedNanos = System.nanoTime() - t0;
+            synchronized (this) {
+                if (unreported == null) {
+                    unreported = result;
+                } else {
+                    unreported.merge(result, 0);
+                    unreported.elapsedNanos += result.elapsedNanos;
+                    if (result.error != null) unreported.error = result.error;
+                }
+            }
+        }
+
+        /**
+         * The report for every row applied since the last call (the rows are
+         * already in the manager), or null when nothing new arrived.
+         */
+        synchronized ImportResult takeReport()
+        {
+            ImportResult report = unreported;
+            unreported = null;
+            return report;
+        }
+
+        // stops the watcher and waits for it, so no row is applied once this returns;
+        // a batch already being applied is finished first
+        @Override
+        public void close() throws IOException
+        {
+            watchService.close();
+            watcher.interrupt();
+            try {
+                watcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // offset just past the last '\n' in [from, size), or from if there is none
+        private static long lastLineEnd(FileChannel channel, long from, long size) throws IOException
+        {
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            long end = size;
+            while (end > from) {
+                long start = Math.max(from, end - probe.capacity());
+                probe.clear().limit((int) (end - start));
+                channel.read(probe, start);
+                for (int i = probe.position() - 1; i >= 0; i--) {
+                    if (probe.get(i) == '\n') return start + i + 1;
+                }
+                end = start;
+            }
+            return from;
+        }
+
+        private static long countLines(FileChannel channel, long end) throws IOException
+        {
+            ByteBuffer probe = ByteBuffer.allocate(1 << 16);
+            long lines = 0;
+            for (long pos = 0; pos < end; ) {
+                probe.clear().limit((int) Math.min(probe.capacity(), end - pos));
+                int n = channel.read(probe, pos);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') lines++;
+                }
+                pos += n;
+            }
+            return lines;
+        }
+    }
+
+    // ------------------- Student Manager -------------------
+    /**
+     * Thread-safe through one StampedLock; writers wait for the log after unlocking,
+     * so they share group commits. Index modes:
+     * - LOCKED_BST (default): NimTable + AVL BST, writes take the write lock,
+     *   range iterators are fail-fast.
+     * - CONCURRENT_SKIP_LIST: ConcurrentHashMap + SkipListIpkIndex, single-row
+     *   writes share the read lock, iterators are weakly consistent. Benchmark
+     *   index on one core: 4-11x slower than LOCKED_BST at 1 to 64 threads.
+     */
+    static class StudentManager implements StudentStore {
+        enum IndexMode { LOCKED_BST, CONCURRENT_SKIP_LIST }
+
+        private Map<String, Student> hashTable; // key: NIM
+        // the four structures below are only reassigned together, under the write lock (replaceAll)
+        private IpkIndex ipkIndex;
+        private CourseIndex courseIndex = new CourseIndex();
+        private Map<Integer, IpkIndex> byMajor = new ConcurrentHashMap<>(); // major id -> that major's students by IPK
+        private final boolean concurrent;
+        private final StampedLock lock = new StampedLock();
+        private WriteAheadLog wal; // null = in-memory only
+
+        public StudentManager() 
+        {
+            this(IndexMode.LOCKED_BST);
+        }
+
+        public StudentManager(IndexMode mode) 
+        {
+            concurrent = mode == IndexMode.CONCURRENT_SKIP_LIST;
+            ipkIndex = newIpkIndex(Student.GLOBAL_SLOT);
+            hashTable = newTable(16);
+        }
+
+        // slot: which Student.bucketPos a BST may use (the global and per-major trees hold the same students)
+        private IpkIndex newIpkIndex(int slot) {
+            return concurrent ? new SkipListIpkIndex() : new BST(slot);
+        }
+
+        private IpkIndex majorIndex(int majorId) {
+            return byMajor.computeIfAbsent(majorId, id -> newIpkIndex(Student.MAJOR_SLOT));
+        }
+
+        // add to / remove from the global and the per-major IPK index
+        private void indexInsert(Student studentEntry) {
+            ipkIndex.insert(studentEntry);
+            majorIndex(studentEntry.majorId).insert(studentEntry);
+        }
+
+        private void indexRemove(Student studentEntry) {
+            ipkIndex.remove(studentEntry);
+            majorIndex(studentEntry.majorId).remove(studentEntry);
+        }
+
+        // batch counterparts of indexInsert / indexRemove: one call per index
+        private void indexInsertAll(Collection<Student> students) {
+            ipkIndex.insertAll(students);
+            groupByMajor(students).forEach((majorId, list) -> majorIndex(majorId).insertAll(list));
+        }
+
+        private void indexRemoveAll(Collection<Student> students) {
+            ipkIndex.removeAll(students);
+            groupByMajor(students).forEach((majorId, list) -> majorIndex(majorId).removeAll(list));
+        }
+
+        private static Map<Integer, List<Student>> groupByMajor(Collection<Student> students) {
+            Map<Integer, List<Student>> perMajor = new HashMap<>();
+            for (Student studentEntry : students) {
+                perMajor.computeIfAbsent(studentEntry.majorId, id -> new ArrayList<>()).add(studentEntry);
+            }
+            return perMajor;
+        }
+
+        // bulk-build every IPK index from scratch; caller holds the write lock
+        private void rebuildIndexes(Collection<Student> students) {
+            ipkIndex.bulkLoad(students);
+            byMajor.clear();
+            groupByMajor(students).forEach((majorId, list) -> majorIndex(majorId).bulkLoad(list));
+            courseIndex.rebuild(students);
+        }
+
+        private Map<String, Student> newTable(int expectedSize) {
+            if (!concurrent) return new NimTable(expectedSize);
+            return new ConcurrentHashMap<>((int) (expectedSize / 0.75f) + 1);
+        }
+
+        // lock for a single-row mutation: exclusive for the BST, shared for the skip list
+        private long lockForUpdate() {
+            return concurrent ? lock.readLock() : lock.writeLock();
+        }
+
+        private void unlockForUpdate(long stamp) {
+            lock.unlock(stamp);
+        }
+
+        // ---- locking helpers ----
+        // run a read-only query optimistically, retrying under the read lock if a writer interfered
+        private <T> T read(Supplier<T> query) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = query.get();
+                    if (lock.validate(stamp)) return result;
+                } catch (RuntimeException e) {
+                    // saw a half-applied write; the locked retry below gives the real answer
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return query.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // build the iterator under the read lock, then hand it out fail-fast
+        // (concurrent mode: the skip-list iterator is weakly consistent, no guard needed)
+        private Iterator<Student> guarded(Supplier<Iterator<Student>> source) {
+            if (concurrent) return read(source);
+            long stamp = lock.readLock();
+            Iterator<Student> it;
+            try {
+                it = source.get();
+            } finally {
+                stamp = lock.tryConvertToOptimisticRead(stamp);
+            }
+            return new GuardedIterator(it, stamp);
+        }
+
+        // spliterator counterpart of guarded()
+        private Spliterator<Student> guardedSpliterator(Supplier<Spliterator<Student>> source) {
+            if (concurrent) return read(source);
+            long stamp = lock.readLock();
+            Spliterator<Student> spliterator;
+            try {
+                spliterator = source.get();
+            } finally {
+                stamp = lock.tryConvertToOptimisticRead(stamp);
+            }
+            return new GuardedSpliterator(spliterator, stamp);
+        }
+
+        private class GuardedSpliterator implements Spliterator<Student> {
+            private final Spliterator<Student> spliterator;
+            private final long stamp;
+
+            GuardedSpliterator(Spliterator<Student> spliterator, long stamp) {
+                this.spliterator = spliterator;
+                this.stamp = stamp;
+            }
+
+            private void check() {
+                if (!lock.validate(stamp)) {
+                    throw new ConcurrentModificationException("student database changed during iteration");
+                }
+            }
+
+            @Override
+            public boolean tryAdvance(java.util.function.Consumer<? super Student> action) {
+                boolean more;
+                try {
+                    // validate before the element reaches the caller
+                    more = spliterator.tryAdvance(s -> {
+                        check();
+                        action.accept(s);
+                    });
+                } catch (ConcurrentModificationException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    check();
+                    throw e;
+                }
+                check();
+                return more;
+            }
+
+            @Override
+            public void forEachRemaining(java.util.function.Consumer<? super Student> action) {
+                java.util.function.Consumer<Student> checked = s -> {
+                    check();
+                    action.accept(s);
+                };
+                try {
+                    spliterator.forEachRemaining(checked);
+                } catch (ConcurrentModificationException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    check();
+                    throw e;
+                }
+                check();
+            }
+
+            @Override
+            public Spliterator<Student> trySplit() {
+                Spliterator<Student> prefix;
+                try {
+                    prefix = spliterator.trySplit();
+                } catch (RuntimeException e) {
+                    check();
+                    throw e;
+                }
+                check();
+                return prefix == null ? null : new GuardedSpliterator(prefix, stamp);
+            }
+
+            @Override
+            public long estimateSize() {
+                return spliterator.estimateSize();
+            }
+
+            @Override
+            public int characteristics() {
+                return spliterator.characteristics();
+            }
+        }
+
+        private class GuardedIterator implements Iterator<Student> {
+            private final Iterator<Student> it;
+            private final long stamp;
+
+            GuardedIterator(Iterator<Student> it, long stamp) {
+                this.it = it;
+                this.stamp = stamp;
+            }
+
+            private void check() {
+                if (!lock.validate(stamp)) {
+                    throw new ConcurrentModificationException("student database changed during iteration");
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                boolean more;
+                try {
+                    more = it.hasNext();
+                } catch (RuntimeException e) {
+                    check();
+                    throw e;
+                }
+                check();
+                return more;
+            }
+
+            @Override
+            public Student next() {
+                Student next;
+                try {
+                    next = it.next();
+                } catch (NoSuchElementException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    check();
+                    throw e;
+                }
+                check();
+                return next;
+            }
+        }
+
+        // insert new student; returns true if success, false if NIM exists
+        public boolean insertStudent(String nim, String name, String major, double ipk) {
+            int hundredths = toHundredths(ipk);
+            if (hundredths < 0) throw new IllegalArgumentException("IPK out of range 0.00-4.00: " + ipk);
+            return insertStudentHundredths(nim, name, major, hundredths);
+        }
+
+        // same as insertStudent, IPK already in hundredths (0..MAX_IPK)
+        public boolean insertStudentHundredths(String nim, String name, String major, int ipk) {
+            // checked before any structure is touched: the IPK index cannot hold it
+            if (ipk < 0 || ipk > MAX_IPK) throw new IllegalArgumentException("IPK out of range: " + ipk);
+            long[] seq = new long[1];
+            boolean inserted;
+            long stamp = lockForUpdate();
+            try {
+                if (hashTable.containsKey(nim)) return false; // duplicate NIM not allowed
+                inserted = insertEntry(new Student(nim, name, major, ipk), seq);
+            } finally {
+                unlockForUpdate(stamp);
+            }
+            awaitLog(seq[0]);
+            return inserted;
+        }
+
+        /**
+         * Add an already built Student; false if the NIM exists. Caller holds
+         * lockForUpdate(); the log sequence goes to seqOut[0].
+         */
+        private boolean insertEntry(Student studentEntry, long[] seqOut) {
+            boolean[] added = new boolean[1];
+            hashTable.compute(studentEntry.nim(), (nim, existing) -> {
+                if (existing != null) return existing;
+                added[0] = true;
+                courseIndex.register(studentEntry);
+                if (wal != null) seqOut[0] = wal.appendInsert(studentEntry);
+                return studentEntry;
+            });
+            if (!added[0]) return false;
+            indexInsert(studentEntry);
+            // a concurrent delete may have removed the NIM before the index insert
+            if (concurrent && hashTable.get(studentEntry.nim()) != studentEntry) indexRemove(studentEntry);
+            return true;
+        }
+
+        // insertEntry under its own lock (imports: one short lock per row, no log wait)
+        private boolean addStudent(Student studentEntry) {
+            long stamp = lockForUpdate();
+            try {
+                return insertEntry(studentEntry, new long[1]);
+            } finally {
+                unlockForUpdate(stamp);
+            }
+        }
+
+        // ---- durability ----
+        // from now on every mutation is appended to wal before the call returns
+        public void attachLog(WriteAheadLog wal) {
+            long stamp = lock.writeLock();
+            try {
+                this.wal = wal;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        public void closeLog() throws IOException {
+            WriteAheadLog closing;
+            long stamp = lock.writeLock();
+            try {
+                closing = wal;
+                wal = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (closing != null) closing.close();
+        }
+
+        // block until everything logged so far is on disk; group commit shares the fsync
+        void syncLog() {
+            WriteAheadLog log = wal;
+            if (log != null) log.awaitDurable(log.lastAppended());
+        }
+
+        private void awaitLog(long seq) {
+            WriteAheadLog log = wal;
+            if (log != null && seq > 0) log.awaitDurable(seq);
+        }
+
+        /**
+         * Save a snapshot and empty the log: recovery is "load snapshot, replay log",
+         * so once the snapshot holds everything the old records are no longer needed.
+         * Holds the write lock throughout so no mutation falls between the two.
+         */
+        public void checkpoint(Path snapshotPath) throws IOException {
+            long stamp = lock.writeLock();
+            try {
+                Snapshot.write(this, snapshotPath);
+                if (wal != null) wal.reset();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * [NEW METHOD] upload batch menggunakan .txt file.
+         * format per line: NIM,Name,Jurusan,IPK
+         * Nothing is printed; the returned report holds counts, samples and timing.
+         */
+        public ImportResult batchUploadFromFile(String filePath) {
+            return batchUploadFromFile(filePath, ImportResult.DEFAULT_MAX_SAMPLES);
+        }
+
+        public ImportResult batchUploadFromFile(String filePath, int maxSamples) {
+            ImportResult result = new ImportResult(maxSamples);
+            long t0 = System.nanoTime();
+            try {
+                MappedCsvReader.readFile(Paths.get(filePath), new MappedCsvReader.RowSink() {
+                    @Override
+                    public void row(String nim, String name, String major, int ipk, long lineNumber) {
+                        if (addStudent(new Student(nim, name, major, ipk))) {
+                            result.imported++;
+                        } else {
+                            result.reject(ImportResult.Reason.DUPLICATE_NIM, lineNumber,
+                                    result.wantsSample() ? rowText(nim, name, major, ipk) : null);
+                        }
+                    }
+
+                    @Override
+                    public void rejected(ImportResult.Reason reason, long lineNumber, MappedCsvReader source) {
+                        result.reject(reason, lineNumber, result.wantsSample() ? source.currentLine() : null);
+                    }
+                });
+            } catch (IOException e) {
+                result.error = e;
+            }
+            syncLog(); // one durability wait for the whole file
+            result.elapsedNanos = System.nanoTime() - t0;
+            return result;
+        }
+
+        /**
+         * batchUploadFromFile for large reloads: parse in parallel without the lock,
+         * then rebuild the hash table and IPK index once.
+         */
+        public ImportResult bulkLoadFromFile(String filePath) {
+            return bulkLoadFromFile(filePath, Runtime.getRuntime().availableProcessors(), ImportResult.DEFAULT_MAX_SAMPLES);
+        }
+
+        public ImportResult bulkLoadFromFile(String filePath, int parallelism, int maxSamples) {
+            long t0 = System.nanoTime();
+            ParallelImporter.ChunkResult parsed;
+            try {
+                parsed = ParallelImporter.parse(Paths.get(filePath), parallelism, maxSamples);
+            } catch (IOException e) {
+                ImportResult failed = new ImportResult(maxSamples);
+                failed.error = e;
+                failed.elapsedNanos = System.nanoTime() - t0;
+                return failed;
+            }
+            ImportResult result = parsed.report;
+
+            long stamp = lock.writeLock();
+            try {
+                int expected = hashTable.size() + parsed.students.size();
+                Map<String, Student> table = newTable(expected);
+                table.putAll(hashTable);
+                List<Student> all = new ArrayList<>(expected);
+                all.addAll(ipkIndex.inorder());
+                for (int i = 0; i < parsed.students.size(); i++) {
+                    Student s = parsed.students.get(i);
+                    if (table.putIfAbsent(s.nim(), s) != null) {
+                        // duplicates are found after parsing, so their samples may arrive out of line order
+                        result.reject(ImportResult.Reason.DUPLICATE_NIM, parsed.lineNumbers[i],
+                                result.wantsSample() ? rowText(s.nim(), s.name, s.major(), s.ipk) : null);
+                        continue;
+                    }
+                    all.add(s);
+                    result.imported++;
+                    if (wal != null) wal.appendInsert(s);
+                }
+                hashTable = table;
+                rebuildIndexes(all);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            syncLog();
+            result.samples.sort(Comparator.comparingLong(sample -> sample.lineNumber));
+            result.elapsedNanos = System.nanoTime() - t0;
+            return result;
+        }
+
+        // row rebuilt in file format, for duplicate samples
+        private static String rowText(String nim, String name, String major, int ipk) {
+            return nim + "," + name + "," + major + "," + formatIpk(ipk);
+        }
+
+        // search by NIM (fast)
+        public Student searchByNim(String nim) {
+            return read(() -> hashTable.get(nim));
+        }
+
+        // search by IPK (may return many); a copy of the bucket, see forEachWithIpk
+        public List<Student> searchByIpk(double ipk) {
+            int key = toHundredths(ipk);
+            return read(() -> ipkIndex.findByIpk(key));
+        }
+
+        // students with minIpk <= ipk <= maxIpk, ascending, produced lazily
+        public Iterator<Student> searchByIpkRange(double minIpk, double maxIpk) {
+            return guarded(() -> ipkIndex.range(lowerKey(minIpk), upperKey(maxIpk)));
+        }
+
+        // students with ipk >= minIpk, ascending
+        public Iterator<Student> searchByIpkAtLeast(double minIpk) {
+            return guarded(() -> ipkIndex.range(lowerKey(minIpk), MAX_IPK));
+        }
+
+        // students with ipk <= maxIpk, ascending
+        public Iterator<Student> searchByIpkAtMost(double maxIpk) {
+            return guarded(() -> ipkIndex.range(0, upperKey(maxIpk)));
+        }
+
+        // students holding the closest IPK at or below / at or above the given one
+        public List<Student> searchByIpkFloor(double ipk) {
+            return read(() -> ipkIndex.floor(upperKey(ipk)));
+        }
+
+        public List<Student> searchByIpkCeiling(double ipk) {
+            return read(() -> ipkIndex.ceiling(lowerKey(ipk)));
+        }
+
+        // smallest key >= ipk / largest key <= ipk, clamped to 0..MAX_IPK
+        // (the 1e-9 absorbs binary noise such as 3.5 * 100 = 349.99999...);
+        // infinities are open bounds, NaN is rejected
+        static int lowerKey(double ipk) {
+            checkBound(ipk);
+            return (int) Math.max(0, Math.min(MAX_IPK + 1, Math.ceil(ipk * 100 - 1e-9)));
+        }
+
+        static int upperKey(double ipk) {
+            checkBound(ipk);
+            return (int) Math.max(-1, Math.min(MAX_IPK, Math.floor(ipk * 100 + 1e-9)));
+        }
+
+        private static void checkBound(double ipk) {
+            if (Double.isNaN(ipk)) throw new IllegalArgumentException("IPK bound is not a number");
+        }
+
+        // ---- order statistics over IPK (subtree counts in the BST) ----
+
+        // the k best students, highest IPK first: one descending walk, O(log n + k)
+        public List<Student> topByIpk(int k) {
+            return read(() -> top(ipkIndex, k));
+        }
+
+        private static List<Student> top(IpkIndex index, int k) {
+            List<Student> top = new ArrayList<>(Math.max(0, Math.min(k, index.size())));
+            for (Iterator<Student> it = index.descendingRange(0, MAX_IPK); top.size() < k && it.hasNext(); ) {
+                top.add(it.next());
+            }
+            return top;
+        }
+
+        // 1 + number of students with a strictly higher IPK (ties share a rank); 0 if NIM unknown
+        public int rankOfNim(String nim) {
+            return read(() -> {
+                Student studentEntry = hashTable.get(nim);
+                if (studentEntry == null) return 0;
+                return 1 + ipkIndex.size() - ipkIndex.countBelow(studentEntry.ipk + 1);
+            });
+        }
+
+        // the k-th student in ascending IPK order (0-based), or null
+        public Student selectByIpk(int k) {
+            return read(() -> ipkIndex.select(k));
+        }
+
+        // nearest-rank percentile (0 < p <= 100) of all IPKs, NaN when empty
+        public double percentileIpk(double p) {
+            if (!(p > 0 && p <= 100)) throw new IllegalArgumentException("percentile must be in (0, 100]: " + p);
+            return read(() -> {
+                int n = ipkIndex.size();
+                if (n == 0) return Double.NaN;
+                Student studentEntry = ipkIndex.select((int) Math.ceil(p / 100 * n) - 1);
+                return studentEntry == null ? Double.NaN : studentEntry.ipk / 100.0;
+            });
+        }
+
+        public double medianIpk() {
+            return percentileIpk(50);
+        }
+
+        // ---- per-major queries (secondary index: major -> IPK index) ----
+
+        // number of students in a major
+        public int countByMajor(String major) {
+            int majorId = Student.MAJORS.find(major);
+            return read(() -> {
+                IpkIndex index = byMajor.get(majorId);
+                return index == null ? 0 : index.size();
+            });
+        }
+
+        // the k best students of a major, highest IPK first
+        public List<Student> topStudentsInMajor(String major, int k) {
+            int majorId = Student.MAJORS.find(major);
+            return read(() -> {
+                IpkIndex index = byMajor.get(majorId);
+                return index == null ? new ArrayList<>() : top(index, k);
+            });
+        }
+
+        // students of a major with minIpk <= ipk <= maxIpk, ascending
+        public Iterator<Student> searchByMajorAndIpkRange(String major, double minIpk, double maxIpk) {
+            int majorId = Student.MAJORS.find(major);
+            return guarded(() -> {
+                IpkIndex index = byMajor.get(majorId);
+                return index == null ? Collections.emptyIterator() : index.range(lowerKey(minIpk), upperKey(maxIpk));
+            });
+        }
+
+        // students taking every one of the courses ("A and B"), via the course index
+        public List<Student> searchByAllCourses(String... courses) {
+            return searchByCourses(courses, true);
+        }
+
+        // students taking at least one of the courses ("A or B")
+        public List<Student> searchByAnyCourse(String... courses) {
+            return searchByCourses(courses, false);
+        }
+
+        private List<Student> searchByCourses(String[] courses, boolean matchAll) {
+            int[] courseIds = new int[courses.length];
+            for (int i = 0; i < courses.length; i++) courseIds[i] = Student.COURSES.find(courses[i]);
+            return read(() -> courseIndex.query(courseIds, matchAll));
+        }
+
+        // ---- batch operations: one lock, one table resize, one index pass, one log wait ----
+
+        // one row for insertStudents: what insertStudentHundredths takes
+        static class Row
+        {
+            final String nim;
+            final String name;
+            final String major;
+            final int ipk; // hundredths
+
+            Row(String nim, String name, String major, int ipk)
+            {
+                this.nim = nim;
+                this.name = name;
+                this.major = major;
+                this.ipk = ipk;
+            }
+        }
+
+        /**
+         * Insert a batch atomically; result[i] is what insertStudentHundredths would
+         * return for rows.get(i). Any IPK out of range rejects the whole batch.
+         */
+        public boolean[] insertStudents(List<Row> rows) {
+            for (Row row : rows) {
+                if (row.ipk < 0 || row.ipk > MAX_IPK) {
+                    throw new IllegalArgumentException("IPK out of range 0.00-4.00 for NIM " + row.nim);
+                }
+            }
+            boolean[] inserted = new boolean[rows.size()];
+            List<Student> accepted = new ArrayList<>(rows.size());
+            long seq = 0;
+            long stamp = lock.writeLock();
+            try {
+                if (hashTable instanceof NimTable) ((NimTable) hashTable).ensureCapacity(hashTable.size() + rows.size());
+                for (int i = 0; i < inserted.length; i++) {
+                    Row row = rows.get(i);
+                    if (hashTable.containsKey(row.nim)) continue;
+                    Student studentEntry = new Student(row.nim, row.name, row.major, row.ipk);
+                    hashTable.put(studentEntry.nim(), studentEntry);
+                    courseIndex.register(studentEntry);
+                    if (wal != null) seq = wal.appendInsert(studentEntry);
+                    accepted.add(studentEntry);
+                    inserted[i] = true;
+                }
+                indexInsertAll(accepted);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(seq);
+            return inserted;
+        }
+
+        // batch deleteByNim: result[i] is true if nims.get(i) was found and removed
+        public boolean[] deleteByNims(List<String> nims) {
+            boolean[] deleted = new boolean[nims.size()];
+            List<Student> removed = new ArrayList<>(nims.size());
+            long seq = 0;
+            long stamp = lock.writeLock();
+            try {
+                for (int i = 0; i < deleted.length; i++) {
+                    Student studentEntry = hashTable.remove(nims.get(i));
+                    if (studentEntry == null) continue;
+                    courseIndex.unregister(studentEntry);
+                    if (wal != null) seq = wal.appendDelete(studentEntry.nim());
+                    removed.add(studentEntry);
+                    deleted[i] = true;
+                }
+                indexRemoveAll(removed);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(seq);
+            return deleted;
+        }
+
+        // ---- visitor queries: hits go straight to a callback, no result list ----
+        /**
+         * forEach* queries: hand each hit to action under the read lock, return the
+         * count. action must not modify this manager.
+         */
+        public int forEachWithIpk(double ipk, Consumer<? super Student> action) {
+            int key = toHundredths(ipk);
+            return visit(action, counted -> ipkIndex.forEachWithIpk(key, counted));
+        }
+
+        public int forEachInIpkRange(double minIpk, double maxIpk, Consumer<? super Student> action) {
+            int lo = lowerKey(minIpk), hi = upperKey(maxIpk);
+            return visit(action, counted -> ipkIndex.range(lo, hi).forEachRemaining(counted));
+        }
+
+        public int forEachInMajor(String major, double minIpk, double maxIpk, Consumer<? super Student> action) {
+            int majorId = Student.MAJORS.find(major);
+            int lo = lowerKey(minIpk), hi = upperKey(maxIpk);
+            return visit(action, counted -> {
+                IpkIndex index = byMajor.get(majorId);
+                if (index != null) index.range(lo, hi).forEachRemaining(counted);
+            });
+        }
+
+        public int forEachWithAllCourses(Consumer<? super Student> action, String... courses) {
+            return forEachWithCourses(action, courses, true);
+        }
+
+        public int forEachWithAnyCourse(Consumer<? super Student> action, String... courses) {
+            return forEachWithCourses(action, courses, false);
+        }
+
+        private int forEachWithCourses(Consumer<? super Student> action, String[] courses, boolean matchAll) {
+            int[] courseIds = new int[courses.length];
+            for (int i = 0; i < courses.length; i++) courseIds[i] = Student.COURSES.find(courses[i]);
+            return visit(action, counted -> courseIndex.forEach(courseIds, matchAll, counted));
+        }
+
+        // run walk under the read lock with a counting wrapper around action
+        private int visit(Consumer<? super Student> action, Consumer<Consumer<Student>> walk) {
+            int[] visited = new int[1];
+            Consumer<Student> counted = studentEntry -> {
+                visited[0]++;
+                action.accept(studentEntry);
+            };
+            long stamp = lock.readLock();
+            try {
+                walk.accept(counted);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            return visited[0];
+        }
+
+        // delete by NIM
+        public boolean deleteByNim(String nim) {
+            long[] seq = new long[1];
+            Student[] removed = new Student[1];
+            long stamp = lockForUpdate();
+            try {
+                hashTable.computeIfPresent(nim, (key, existing) -> {
+                    removed[0] = existing;
+                    courseIndex.unregister(existing);
+                    if (wal != null) seq[0] = wal.appendDelete(nim);
+                    return null;
+                });
+                if (removed[0] == null) return false;
+                indexRemove(removed[0]);
+            } finally {
+                unlockForUpdate(stamp);
+            }
+            awaitLog(seq[0]);
+            return true;
+        }
+
+        /**
+         * All students by ascending IPK as a lazy, splittable stream; fail-fast like
+         * the range iterators in the default mode.
+         */
+        public Stream<Student> streamAllOrderedByIpk() {
+            return StreamSupport.stream(guardedSpliterator(() -> ipkIndex.spliterator(0, MAX_IPK)), false);
+        }
+
+        public Stream<Student> streamByIpkRange(double minIpk, double maxIpk) {
+            return StreamSupport.stream(guardedSpliterator(() -> ipkIndex.spliterator(lowerKey(minIpk), upperKey(maxIpk))), false);
+        }
+
+        // all students by ascending IPK, produced lazily
+        public Iterator<Student> iterateAllOrderedByIpk() {
+            return guarded(() -> ipkIndex.range(0, MAX_IPK));
+        }
+
+        // full copy; prefer iterateAllOrderedByIpk / streamAllOrderedByIpk for big databases
+        public List<Student> listAllOrderedByIpk() {
+            long stamp = lock.readLock();
+            try {
+                return ipkIndex.inorder();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // stats
+        public int totalStudents() {
+            return read(() -> hashTable.size());
+        }
+
+        public boolean addCourseToStudent(String nim, String course) 
+        {
+            long[] seq = new long[1];
+            long stamp = lockForUpdate();
+            try {
+                Student studentEntry = hashTable.computeIfPresent(nim, (key, existing) -> {
+                    // interned only once the NIM is known: COURSES is global and never shrinks
+                    int courseId = Student.COURSES.idOf(course);
+                    existing.addCourseId(courseId);
+                    courseIndex.enroll(existing, courseId);
+                    if (wal != null) seq[0] = wal.appendCourse(nim, course);
+                    return existing;
+                });
+                if (studentEntry == null) return false;
+            } finally {
+                unlockForUpdate(stamp);
+            }
+            awaitLog(seq[0]);
+            return true;
+        }
+
+        // replace the whole database with these students, e.g. from a snapshot. Table and
+        // indexes are built aside and swapped in together, so bad input changes nothing.
+        void replaceAll(List<Student> students) {
+            Map<String, Student> table = newTable(students.size());
+            for (Student studentEntry : students) {
+                if (studentEntry.ipk < 0 || studentEntry.ipk > MAX_IPK) {
+                    throw new IllegalArgumentException("IPK out of range for NIM " + studentEntry.nim());
+                }
+                if (table.putIfAbsent(studentEntry.nim(), studentEntry) != null) {
+                    throw new IllegalArgumentException("duplicate NIM " + studentEntry.nim());
+                }
+            }
+            IpkIndex index = newIpkIndex(Student.GLOBAL_SLOT);
+            index.bulkLoad(students);
+            Map<Integer, IpkIndex> perMajor = new ConcurrentHashMap<>();
+            groupByMajor(students).forEach((majorId, list) -> {
+                IpkIndex majorIndex = newIpkIndex(Student.MAJOR_SLOT);
+                majorIndex.bulkLoad(list);
+                perMajor.put(majorId, majorIndex);
+            });
+            CourseIndex courses = new CourseIndex();
+            courses.rebuild(students);
+            long stamp = lock.writeLock();
+            try {
+                hashTable = table;
+                ipkIndex = index;
+                byMajor = perMajor;
+                courseIndex = courses;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // ------------------- Student stores -------------------
+    /**
+     * Core student operations shared by StudentManager and the columnar and
+     * off-heap stores (see --storage). IPK in hundredths on insert, doubles on query.
+     */
+    interface StudentStore
+    {
+        boolean insertStudentHundredths(String nim, String name, String major, int ipk);
+
+        Student searchByNim(String nim);
+
+        List<Student> searchByIpk(double ipk);
+
+        Iterator<Student> searchByIpkRange(double minIpk, double maxIpk);
+
+        boolean deleteByNim(String nim);
+
+        boolean addCourseToStudent(String nim, String course);
+
+        List<Student> listAllOrderedByIpk();
+
+        int totalStudents();
+    }
+
+    // ---- Symbol table: string <-> dense int id ----
+    /**
+     * Append-only dictionary; lookups of known strings are lock-free and ids are
+     * never reused.
+     */
+    static class SymbolTable
+    {
+        private volatile String[] symbols = new String[16];
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile int size;
+
+        // id of text, assigning the next id the first time it is seen
+        int idOf(String text) {
+            Integer id = ids.get(text);
+            if (id != null) return id;
+            synchronized (this) {
+                id = ids.get(text);
+                if (id != null) return id;
+                int next = size;
+                String[] table = symbols;
+                if (next == table.length) table = Arrays.copyOf(table, next * 2);
+                table[next] = text;
+                symbols = table;
+                size = next + 1;
+                ids.put(text, next); // publishes the array slot to readers that find the id
+                return next;
+            }
+        }
+
+        // id of text, or -1 if it was never added
+        int find(String text) {
+            Integer id = ids.get(text);
+            return id == null ? -1 : id;
+        }
+
+        String get(int id) {
+            if (id < 0 || id >= size) throw new IndexOutOfBoundsException("unknown symbol id " + id);
+            return symbols[id];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // ---- Long -> row id table (open addressing, like NimTable) ----
+    static class LongIntTable
+    {
+        private long[] keys;
+        private int[] rows; // row + 1, 0 = free slot
+        private int size;
+        private final LongProbe.Slots probe = new LongProbe.Slots() {
+            @Override
+            public long slotCount() {
+                return keys.length;
+            }
+
+            @Override
+            public boolean isUsed(long slot) {
+                return rows[(int) slot] != 0;
+            }
+
+            @Override
+            public long keyAt(long slot) {
+                return keys[(int) slot];
+            }
+
+            @Override
+            public void moveSlot(long from, long to) {
+                keys[(int) to] = keys[(int) from];
+                rows[(int) to] = rows[(int) from];
+            }
+
+            @Override
+            public void freeSlot(long slot) {
+                rows[(int) slot] = 0;
+            }
+        };
+
+        LongIntTable(int expectedSize)
+        {
+            int capacity = LongProbe.capacityFor(expectedSize);
+            keys = new long[capacity];
+            rows = new int[capacity];
+        }
+
+        private int find(long key) {
+            return (int) LongProbe.find(probe, key);
+        }
+
+        // row for key, or -1
+        int get(long key) {
+            return rows[find(key)] - 1;
+        }
+
+        // map key to row unless present; returns false if key was already there
+        boolean putIfAbsent(long key, int row) {
+            int i = find(key);
+            if (rows[i] != 0) return false;
+            keys[i] = key;
+            rows[i] = row + 1;
+            if (++size > keys.length * LongProbe.LOAD_FACTOR) resize();
+            return true;
+        }
+
+        // remove key, returning its row or -1
+        int remove(long key) {
+            int i = find(key);
+            int row = rows[i] - 1;
+            if (row < 0) return -1;
+            LongProbe.delete(probe, i);
+            size--;
+            return row;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new long[oldKeys.length << 1];
+            rows = new int[oldRows.length << 1];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldRows[i] == 0) continue;
+                int j = find(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                rows[j] = oldRows[i];
+            }
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // ------------------- Columnar student store -------------------
+    /**
+     * Struct-of-arrays StudentStore: parallel columns indexed by row id; the NIM
+     * table and the per-IPK buckets hold row ids. Deleted rows are reused.
+     */
+    static class ColumnarStudentStore implements StudentStore
+    {
+        private static final short DELETED = -1;
+
+        private long[] nim = new long[16]; // numeric NIM, or -(1 + id in nimSymbols)
+        private String[] name = new String[16];
+        private int[] majorId = new int[16];
+        private short[] ipk = new short[16];
+        private int[][] courseIds = new int[16][]; // null = no courses
+        private int[] posInBucket = new int[16]; // index of the row in byIpk[ipk[row]]
+        private int rowCount; // rows in use or deleted; arrays beyond this are empty
+        private int[] freeRows = new int[16];
+        private int freeCount;
+
+        private final int[][] byIpk = new int[MAX_IPK + 1][];
+        private final int[] byIpkSize = new int[MAX_IPK + 1];
+        private final LongIntTable rowByNim = new LongIntTable(16);
+        private final SymbolTable nimSymbols = new SymbolTable();
+        private final SymbolTable majors = Student.MAJORS;
+        private final SymbolTable courses = Student.COURSES;
+        private final StampedLock lock = new StampedLock();
+
+        // NIM as stored in the nim column; adds non-numeric NIMs to nimSymbols only if create
+        private long nimKey(String text, boolean create) {
+            long key = NimTable.numericKey(text);
+            if (key >= 0) return key;
+            int id = create ? nimSymbols.idOf(text) : nimSymbols.find(text);
+            return id < 0 ? Long.MIN_VALUE : -1L - id;
+        }
+
+        private String nimText(long key) {
+            return key >= 0 ? Long.toString(key) : nimSymbols.get((int) (-1L - key));
+        }
+
+        @Override
+        public boolean insertStudentHundredths(String nimText, String nameText, String major, int ipkValue) {
+            if (ipkValue < 0 || ipkValue > MAX_IPK) throw new IllegalArgumentException("IPK out of range: " + ipkValue);
+            long stamp = lock.writeLock();
+            try {
+                long key = nimKey(nimText, true);
+                int row = freeCount > 0 ? freeRows[freeCount - 1] : rowCount;
+                if (!rowByNim.putIfAbsent(key, row)) return false;
+                if (freeCount > 0) freeCount--; else growTo(++rowCount);
+                nim[row] = key;
+                name[row] = nameText;
+                majorId[row] = majors.idOf(major);
+                ipk[row] = (short) ipkValue;
+                courseIds[row] = null;
+                addToBucket(row);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void growTo(int rows) {
+            if (rows <= nim.length) return;
+            int capacity = Math.max(rows, nim.length * 2);
+            nim = Arrays.copyOf(nim, capacity);
+            name = Arrays.copyOf(name, capacity);
+            majorId = Arrays.copyOf(majorId, capacity);
+            ipk = Arrays.copyOf(ipk, capacity);
+            courseIds = Arrays.copyOf(courseIds, capacity);
+            posInBucket = Arrays.copyOf(posInBucket, capacity);
+        }
+
+        private void addToBucket(int row) {
+            int key = ipk[row];
+            int[] bucket = byIpk[key];
+            if (bucket == null) bucket = byIpk[key] = new int[8];
+            else if (byIpkSize[key] == bucket.length) bucket = byIpk[key] = Arrays.copyOf(bucket, bucket.length * 2);
+            posInBucket[row] = byIpkSize[key];
+            bucket[byIpkSize[key]++] = row;
+        }
+
+        // swap-remove: the last row of the bucket takes the freed position
+        private void removeFromBucket(int row) {
+            int key = ipk[row];
+            int[] bucket = byIpk[key];
+            int last = bucket[--byIpkSize[key]];
+            bucket[posInBucket[row]] = last;
+            posInBucket[last] = posInBucket[row];
+        }
+
+        @Override
+        public boolean deleteByNim(String nimText) {
+            long stamp = lock.writeLock();
+            try {
+                long key = nimKey(nimText, false);
+                int row = key == Long.MIN_VALUE ? -1 : rowByNim.remove(key);
+                if (row < 0) return false;
+                removeFromBucket(row);
+                ipk[row] = DELETED;
+                name[row] = null;
+                courseIds[row] = null;
+                if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+                freeRows[freeCount++] = row;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public boolean addCourseToStudent(String nimText, String course) {
+            long stamp = lock.writeLock();
+            try {
+                int row = rowOf(nimText);
+                if (row < 0) return false;
+                int id = courses.idOf(course);
+                int[] current = courseIds[row];
+                if (current == null) {
+                    courseIds[row] = new int[] { id };
+                } else {
+                    for (int c : current) if (c == id) return true;
+                    int[] grown = Arrays.copyOf(current, current.length + 1);
+                    grown[current.length] = id;
+                    courseIds[row] = grown;
+                }
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // row of a NIM or -1; caller holds the lock
+        private int rowOf(String nimText) {
+            long key = nimKey(nimText, false);
+            return key == Long.MIN_VALUE ? -1 : rowByNim.get(key);
+        }
+
+        // a detached Student built from row; caller holds the lock
+        private Student materialize(int row) {
+            Student studentEntry = new Student(nimText(nim[row]), name[row], majors.get(majorId[row]), ipk[row]);
+            if (courseIds[row] != null) {
+                for (int c : courseIds[row]) studentEntry.addCourseId(c);
+            }
+            return studentEntry;
+        }
+
+        @Override
+        public Student searchByNim(String nimText) {
+            long stamp = lock.readLock();
+            try {
+                int row = rowOf(nimText);
+                return row < 0 ? null : materialize(row);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public List<Student> searchByIpk(double ipkValue) {
+            int key = toHundredths(ipkValue);
+            return collect(key, key);
+        }
+
+        @Override
+        public Iterator<Student> searchByIpkRange(double minIpk, double maxIpk) {
+            return new RangeIterator(StudentManager.lowerKey(minIpk), StudentManager.upperKey(maxIpk));
+        }
+
+        // walks the IPK buckets lazily, one row per step under the read lock;
+        // fails fast once the store was written after the iterator was created
+        private class RangeIterator implements Iterator<Student> {
+            private final long stamp = lock.tryConvertToOptimisticRead(lock.readLock());
+            private final int hi;
+            private int key;
+            private int pos;
+
+            RangeIterator(int lo, int hi) {
+                this.key = lo;
+                this.hi = hi;
+            }
+
+            // moves to the next non-empty bucket; caller holds the lock
+            private boolean advance() {
+                if (!lock.validate(stamp)) {
+                    throw new ConcurrentModificationException("student database changed during iteration");
+                }
+                while (key <= hi && pos >= byIpkSize[key]) {
+                    key++;
+                    pos = 0;
+                }
+                return key <= hi;
+            }
+
+            @Override
+            public boolean hasNext() {
+                long read = lock.readLock();
+                try {
+                    return advance();
+                } finally {
+                    lock.unlockRead(read);
+                }
+            }
+
+            @Override
+            public Student next() {
+                long read = lock.readLock();
+                try {
+                    if (!advance()) throw new NoSuchElementException();
+                    return materialize(byIpk[key][pos++]);
+                } finally {
+                    lock.unlockRead(read);
+                }
+            }
+        }
+
+        @Override
+        public List<Student> listAllOrderedByIpk() {
+            return collect(0, MAX_IPK);
+        }
+
+        private List<Student> collect(int lo, int hi) {
+            List<Student> list = new ArrayList<>();
+            if (lo < 0 || hi > MAX_IPK || lo > hi) return list;
+            long stamp = lock.readLock();
+            try {
+                for (int key = lo; key <= hi; key++) {
+                    for (int i = 0; i < byIpkSize[key]; i++) list.add(materialize(byIpk[key][i]));
+                }
+                return list;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public int totalStudents() {
+            long stamp = lock.readLock();
+            try {
+                return rowByNim.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // ---- column scans ----
+
+        // mean IPK in hundredths over all students, or NaN when empty
+        public double averageIpk() {
+            long stamp = lock.readLock();
+            try {
+                long sum = 0;
+                int count = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (ipk[row] == DELETED) continue;
+                    sum += ipk[row];
+                    count++;
+                }
+                return count == 0 ? Double.NaN : (double) sum / count;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // number of students per major
+        public Map<String, Integer> countByMajor() {
+            long stamp = lock.readLock();
+            try {
+                int[] counts = new int[majors.size()];
+                for (int row = 0; row < rowCount; row++) {
+                    if (ipk[row] != DELETED) counts[majorId[row]]++;
+                }
+                Map<String, Integer> result = new TreeMap<>();
+                for (int id = 0; id < counts.length; id++) {
+                    if (counts[id] > 0) result.put(majors.get(id), counts[id]);
+                }
+                return result;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    // ---- Direct (off-heap) memory in fixed-size chunks ----
+    /**
+     * Growable off-heap memory in 16 MB direct chunks (the last one starts small
+     * and doubles). An access must not cross a chunk boundary, see fitsInChunk().
+     */
+    static class DirectMemory
+    {
+        static final int CHUNK_SHIFT = 24;
+        static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int OFFSET_MASK = CHUNK_SIZE - 1;
+        private static final int MIN_CHUNK = 4096;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        // make offsets [0, bytes) usable
+        void ensure(long bytes) {
+            while (capacity() < bytes) {
+                int last = chunks.size() - 1;
+                long wanted = bytes - ((long) Math.max(last, 0) << CHUNK_SHIFT);
+                if (last >= 0 && chunks.get(last).capacity() < CHUNK_SIZE) {
+                    ByteBuffer old = chunks.get(last);
+                    ByteBuffer grown = allocate(Math.max(wanted, 2L * old.capacity()));
+                    grown.put(0, old, 0, old.capacity());
+                    chunks.set(last, grown);
+                } else {
+                    chunks.add(allocate(bytes - capacity()));
+                }
+            }
+        }
+
+        private static ByteBuffer allocate(long bytes) {
+            int size = (int) Math.min(CHUNK_SIZE, Math.max(MIN_CHUNK, bytes));
+            return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+
+        long capacity() {
+            int last = chunks.size() - 1;
+            return last < 0 ? 0 : ((long) last << CHUNK_SHIFT) + chunks.get(last).capacity();
+        }
+
+        static boolean fitsInChunk(long address, int length) {
+            return (address & OFFSET_MASK) + length <= CHUNK_SIZE;
+        }
+
+        private ByteBuffer chunk(long address) {
+            return chunks.get((int) (address >>> CHUNK_SHIFT));
+        }
+
+        long getLong(long address) {
+            return chunk(address).getLong((int) (address & OFFSET_MASK));
+        }
+
+        void putLong(long address, long value) {
+            chunk(address).putLong((int) (address & OFFSET_MASK), value);
+        }
+
+        int getInt(long address) {
+            return chunk(address).getInt((int) (address & OFFSET_MASK));
+        }
+
+        void putInt(long address, int value) {
+            chunk(address).putInt((int) (address & OFFSET_MASK), value);
+        }
+
+        short getShort(long address) {
+            return chunk(address).getShort((int) (address & OFFSET_MASK));
+        }
+
+        void putShort(long address, short value) {
+            chunk(address).putShort((int) (address & OFFSET_MASK), value);
+        }
+
+        void getBytes(long address, byte[] dst) {
+            chunk(address).get((int) (address & OFFSET_MASK), dst);
+        }
+
+        void putBytes(long address, byte[] src) {
+            chunk(address).put((int) (address & OFFSET_MASK), src);
+        }
+    }
+
+    // ------------------- Off-heap student store -------------------
+    /**
+     * StudentStore with every record off-heap, so heap use stays flat. Regions:
+     * - records: 32 bytes per row: long nimKey (or -arena ref), int name, int
+     *   courses, int majorId, int prev, int next (per-IPK list / free rows), short ipk
+     * - arena: strings and course lists, 8-byte aligned; freed blocks are reused by size
+     * - slots: numeric NIM -> row id
+     */
+    static class OffHeapStudentStore implements StudentStore
+    {
+        private static final int RECORD = 32;
+        private static final int NIM = 0, NAME = 8, COURSES = 12, MAJOR = 16, PREV = 20, NEXT = 24, IPK = 28;
+        private static final int SLOT = 16; // long key, int row + 1 (0 = free), 4 bytes padding
+        private static final short DELETED = -1;
+        private static final int ARENA_PER_STUDENT = 32; // first arena size: a short name plus slack
+
+        private final DirectMemory records = new DirectMemory();
+        private final DirectMemory arena = new DirectMemory();
+        private DirectMemory slots = new DirectMemory();
+        private long slotCount;
+        private long usedSlots;
+        private long arenaTop = 8; // ref 0 means "none"
+        // size in 8-byte units -> first free block; a free block starts with the ref of the next one
+        private final Map<Integer, Integer> freeBlocks = new HashMap<>();
+
+        private int rowCount; // rows ever used (live or free)
+        private int freeHead = -1;
+        private int size;
+        private final int[] ipkHead = new int[MAX_IPK + 1];
+        private final int[] ipkTail = new int[MAX_IPK + 1];
+        private final Map<String, Integer> rowByText = new HashMap<>(); // non-numeric NIMs
+        private final SymbolTable majors = Student.MAJORS;
+        private final SymbolTable courses = Student.COURSES;
+        private final StampedLock lock = new StampedLock();
+
+        public OffHeapStudentStore()
+        {
+            this(1024);
+        }
+
+        public OffHeapStudentStore(int expectedStudents)
+        {
+            Arrays.fill(ipkHead, -1);
+            Arrays.fill(ipkTail, -1);
+            slotCount = LongProbe.capacityFor(expectedStudents);
+            slots.ensure(slotCount * SLOT);
+            records.ensure(rec(expectedStudents));
+            arena.ensure((long) expectedStudents * ARENA_PER_STUDENT);
+        }
+
+        // off-heap bytes reserved (records + arena + NIM table)
+        public long offHeapBytes() {
+            long stamp = lock.readLock();
+            try {
+                return records.capacity() + arena.capacity() + slots.capacity();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static long rec(int row) {
+            return (long) row * RECORD;
+        }
+
+        // ---- arena ----
+
+        private static int units(int length) {
+            return (length + 7) >>> 3;
+        }
+
+        // reserve length bytes (8-aligned, inside one chunk) and return the ref;
+        // a freed block of the same size is taken first
+        private int allocate(int length) {
+            if (length > DirectMemory.CHUNK_SIZE) throw new IllegalArgumentException("value too large: " + length + " bytes");
+            Integer free = freeBlocks.get(units(length));
+            if (free != null) {
+                int next = arena.getInt((long) free << 3);
+                if (next == 0) freeBlocks.remove(units(length)); else freeBlocks.put(units(length), next);
+                return free;
+            }
+            if (!DirectMemory.fitsInChunk(arenaTop, length)) {
+                arenaTop = (arenaTop + DirectMemory.CHUNK_SIZE) & -DirectMemory.CHUNK_SIZE;
+            }
+            long address = arenaTop;
+            arenaTop = (arenaTop + length + 7) & -8L;
+            arena.ensure(arenaTop);
+            if (address >>> 3 > Integer.MAX_VALUE) throw new IllegalStateException("off-heap arena full");
+            return (int) (address >>> 3);
+        }
+
+        private void release(int ref, int length) {
+            Integer next = freeBlocks.put(units(length), ref);
+            arena.putInt((long) ref << 3, next == null ? 0 : next);
+        }
+
+        private void releaseString(int ref) {
+            release(ref, 4 + arena.getInt((long) ref << 3));
+        }
+
+        private void releaseCourses(int ref) {
+            if (ref != 0) release(ref, 4 + 4 * arena.getInt((long) ref << 3));
+        }
+
+        private int writeString(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            int ref = allocate(4 + bytes.length);
+            long address = (long) ref << 3;
+            arena.putInt(address, bytes.length);
+            arena.putBytes(address + 4, bytes);
+            return ref;
+        }
+
+        private String readString(int ref) {
+            long address = (long) ref << 3;
+            byte[] bytes = new byte[arena.getInt(address)];
+            arena.getBytes(address + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // ---- NIM -> row ----
+
+        // slot i lives at address i * SLOT
+        private final LongProbe.Slots probe = new LongProbe.Slots() {
+            @Override
+            public long slotCount() {
+                return slotCount;
+            }
+
+            @Override
+            public boolean isUsed(long slot) {
+                return slots.getInt(slot * SLOT + 8) != 0;
+            }
+
+            @Override
+            public long keyAt(long slot) {
+                return slots.getLong(slot * SLOT);
+            }
+
+            @Override
+            public void moveSlot(long from, long to) {
+                slots.putLong(to * SLOT, slots.getLong(from * SLOT));
+                slots.putInt(to * SLOT + 8, slots.getInt(from * SLOT + 8));
+            }
+
+            @Override
+            public void freeSlot(long slot) {
+                slots.putInt(slot * SLOT + 8, 0);
+            }
+        };
+
+        // address of the slot holding key, or of the free slot where it would go
+        private long findSlot(long key) {
+            return LongProbe.find(probe, key) * SLOT;
+        }
+
+        private int rowOf(String nimText) {
+            long key = NimTable.numericKey(nimText);
+            if (key < 0) {
+                Integer row = rowByText.get(nimText);
+                return row == null ? -1 : row;
+            }
+            return slots.getInt(findSlot(key) + 8) - 1;
+        }
+
+        private void putSlot(long key, int row) {
+            long address = findSlot(key);
+            slots.putLong(address, key);
+            slots.putInt(address + 8, row + 1);
+            if (++usedSlots > slotCount * LongProbe.LOAD_FACTOR) resizeSlots();
+        }
+
+        private void removeSlot(long key) {
+            LongProbe.delete(probe, LongProbe.find(probe, key));
+            usedSlots--;
+        }
+
+        private void resizeSlots() {
+            DirectMemory old = slots;
+            long oldCount = slotCount;
+            slots = new DirectMemory();
+            slotCount <<= 1;
+            slots.ensure(slotCount * SLOT);
+            usedSlots = 0;
+            for (long address = 0; address < oldCount * SLOT; address += SLOT) {
+                int row = old.getInt(address + 8);
+                if (row != 0) putSlot(old.getLong(address), row - 1);
+            }
+        }
+
+        // ---- IPK lists ----
+
+        private void link(int row, int key) {
+            long r = rec(row);
+            records.putInt(r + PREV, ipkTail[key]);
+            records.putInt(r + NEXT, -1);
+            if (ipkTail[key] < 0) ipkHead[key] = row; else records.putInt(rec(ipkTail[key]) + NEXT, row);
+            ipkTail[key] = row;
+        }
+
+        private void unlink(int row, int key) {
+            long r = rec(row);
+            int prev = records.getInt(r + PREV), next = records.getInt(r + NEXT);
+            if (prev < 0) ipkHead[key] = next; else records.putInt(rec(prev) + NEXT, next);
+            if (next < 0) ipkTail[key] = prev; else records.putInt(rec(next) + PREV, prev);
+        }
+
+        // ---- StudentStore ----
+
+        @Override
+        public boolean insertStudentHundredths(String nimText, String name, String major, int ipkValue) {
+            if (ipkValue < 0 || ipkValue > MAX_IPK) throw new IllegalArgumentException("IPK out of range: " + ipkValue);
+            long stamp = lock.writeLock();
+            try {
+                if (rowOf(nimText) >= 0) return false;
+                int row;
+                if (freeHead >= 0) {
+                    row = freeHead;
+                    freeHead = records.getInt(rec(row) + NEXT);
+                } else {
+                    row = rowCount++;
+                    records.ensure(rec(rowCount));
+                }
+                long r = rec(row);
+                long key = NimTable.numericKey(nimText);
+                if (key >= 0) {
+                    putSlot(key, row);
+                } else {
+                    rowByText.put(nimText, row);
+                    key = -(long) writeString(nimText);
+                }
+                records.putLong(r + NIM, key);
+                records.putInt(r + NAME, writeString(name));
+                records.putInt(r + COURSES, 0);
+                records.putInt(r + MAJOR, majors.idOf(major));
+                records.putShort(r + IPK, (short) ipkValue);
+                link(row, ipkValue);
+                size++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public boolean deleteByNim(String nimText) {
+            long stamp = lock.writeLock();
+            try {
+                int row = rowOf(nimText);
+                if (row < 0) return false;
+                long r = rec(row);
+                long key = records.getLong(r + NIM);
+                if (key >= 0) {
+                    removeSlot(key);
+                } else {
+                    rowByText.remove(nimText);
+                    releaseString((int) -key);
+                }
+                releaseString(records.getInt(r + NAME));
+                releaseCourses(records.getInt(r + COURSES));
+                unlink(row, records.getShort(r + IPK));
+                records.putShort(r + IPK, DELETED);
+                records.putInt(r + NEXT, freeHead);
+                freeHead = row;
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public boolean addCourseToStudent(String nimText, String course) {
+            long stamp = lock.writeLock();
+            try {
+                int row = rowOf(nimText);
+                if (row < 0) return false;
+                int id = courses.idOf(course);
+                long r = rec(row);
+                int[] current = readCourses(records.getInt(r + COURSES));
+                for (int c : current) if (c == id) return true;
+                int ref = allocate(4 * (current.length + 2));
+                long address = (long) ref << 3;
+                arena.putInt(address, current.length + 1);
+                for (int i = 0; i < current.length; i++) arena.putInt(address + 4 + 4L * i, current[i]);
+                arena.putInt(address + 4 + 4L * current.length, id);
+                releaseCourses(records.getInt(r + COURSES));
+                records.putInt(r + COURSES, ref);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int[] readCourses(int ref) {
+            if (ref == 0) return new int[0];
+            long address = (long) ref << 3;
+            int[] ids = new int[arena.getInt(address)];
+            for (int i = 0; i < ids.length; i++) ids[i] = arena.getInt(address + 4 + 4L * i);
+            return ids;
+        }
+
+        // a detached Student built from the record; caller holds the lock
+        private Student materialize(int row) {
+            long r = rec(row);
+            long key = records.getLong(r + NIM);
+            String nimText = key >= 0 ? Long.toString(key) : readString((int) -key);
+            Student studentEntry = new Student(nimText, readString(records.getInt(r + NAME)),
+                    majors.get(records.getInt(r + MAJOR)), records.getShort(r + IPK));
+            for (int c : readCourses(records.getInt(r + COURSES))) studentEntry.addCourseId(c);
+            return studentEntry;
+        }
+
+        @Override
+        public Student searchByNim(String nimText) {
+            long stamp = lock.readLock();
+            try {
+                int row = rowOf(nimText);
+                return row < 0 ? null : materialize(row);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public List<Student> searchByIpk(double ipkValue) {
+            int key = toHundredths(ipkValue);
+            return collect(key, key);
+        }
+
+        @Override
+        public Iterator<Student> searchByIpkRange(double minIpk, double maxIpk) {
+            return new RangeIterator(StudentManager.lowerKey(minIpk), StudentManager.upperKey(maxIpk));
+        }
+
+        // follows the IPK lists lazily, one row per step under the read lock;
+        // fails fast once the store was written after the iterator was created
+        private class RangeIterator implements Iterator<Student> {
+            private final long stamp = lock.tryConvertToOptimisticRead(lock.readLock());
+            private final int hi;
+            private int key;
+            private int row = -1;
+
+            RangeIterator(int lo, int hi) {
+                this.key = lo - 1;
+                this.hi = hi;
+            }
+
+            // moves to the next row, if any; caller holds the lock
+            private boolean advance() {
+                if (!lock.validate(stamp)) {
+                    throw new ConcurrentModificationException("student database changed during iteration");
+                }
+                while (row < 0 && key < hi) row = ipkHead[++key];
+                return row >= 0;
+            }
+
+            @Override
+            public boolean hasNext() {
+                long read = lock.readLock();
+                try {
+                    return advance();
+                } finally {
+                    lock.unlockRead(read);
+                }
+            }
+
+            @Override
+            public Student next() {
+                long read = lock.readLock();
+                try {
+                    if (!advance()) throw new NoSuchElementException();
+                    int current = row;
+                    row = records.getInt(rec(current) + NEXT);
+                    return materialize(current);
+                } finally {
+                    lock.unlockRead(read);
+                }
+            }
+        }
+
+        @Override
+        public List<Student> listAllOrderedByIpk() {
+            return collect(0, MAX_IPK);
+        }
+
+        private List<Student> collect(int lo, int hi) {
+            List<Student> list = new ArrayList<>();
+            if (lo < 0 || hi > MAX_IPK || lo > hi) return list;
+            long stamp = lock.readLock();
+            try {
+                for (int key = lo; key <= hi; key++) {
+                    for (int row = ipkHead[key]; row >= 0; row = records.getInt(rec(row) + NEXT)) list.add(materialize(row));
+                }
+                return list;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public int totalStudents() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // mean IPK in hundredths over all students, or NaN when empty (sequential record scan)
+        public double averageIpk() {
+            long stamp = lock.readLock();
+            try {
+                long sum = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    short value = records.getShort(rec(row) + IPK);
+                    if (value != DELETED) sum += value;
+                }
+                return size == 0 ? Double.NaN : (double) sum / size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    // ------------------- Binary snapshot -------------------
+    /**
+     * Binary snapshot: magic "MHS1", version, count, majors and courses
+     * dictionaries, then students by IPK (nim, name, varint majorId, short ipk,
+     * varint courseCount + courseIds). Strings are varint length + UTF-8.
+     */
+    static class Snapshot
+    {
+        static final int MAGIC = 0x4D48_5331; // "MHS1"
+        static final int VERSION = 1;
+        static final String DEFAULT_FILE = "students.snap";
+
+        static void save(StudentManager mgr, Path path) throws IOException
+        {
+            // writers wait, other readers carry on (concurrent-mode writers share the
+            // read side, so that mode has to lock exclusively)
+            long stamp = mgr.concurrent ? mgr.lock.writeLock() : mgr.lock.readLock();
+            try {
+                write(mgr, path);
+            } finally {
+                mgr.lock.unlock(stamp);
+            }
+        }
+
+        // caller holds mgr.lock so no writer runs; students are streamed twice, never copied
+        static void write(StudentManager mgr, Path path) throws IOException
+        {
+            IpkIndex index = mgr.ipkIndex;
+            Map<String, Integer> majorIds = new LinkedHashMap<>();
+            Map<String, Integer> courseIds = new LinkedHashMap<>();
+            for (Iterator<Student> it = index.range(0, MAX_IPK); it.hasNext(); ) {
+                Student s = it.next();
+                majorIds.putIfAbsent(s.major(), majorIds.size());
+                for (String course : s.courses()) courseIds.putIfAbsent(course, courseIds.size());
+            }
+
+            // write next to the target, fsync it and swap in, so a crash never leaves half a snapshot
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(index.size());
+                writeDictionary(out, majorIds.keySet());
+                writeDictionary(out, courseIds.keySet());
+                for (Iterator<Student> it = index.range(0, MAX_IPK); it.hasNext(); ) {
+                    Student s = it.next();
+                    writeString(out, s.nim());
+                    writeString(out, s.name);
+                    writeVarInt(out, majorIds.get(s.major()));
+                    out.writeShort(s.ipk);
+                    List<String> courses = s.courses();
+                    writeVarInt(out, courses.size());
+                    for (String course : courses) writeVarInt(out, courseIds.get(course));
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // the rename itself is only durable once the directory entry is on disk;
+            // checkpoint() truncates the log right after this returns
+            forceDirectory(path.toAbsolutePath().getParent());
+        }
+
+        private static void forceDirectory(Path dir) throws IOException
+        {
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // some platforms (Windows) cannot open a directory; nothing more can be done there
+                if (!System.getProperty("os.name", "").startsWith("Windows")) throw e;
+            }
+        }
+
+        // replaces everything in mgr with the snapshot content; returns the student count
+        static int loadInto(StudentManager mgr, Path path) throws IOException
+        {
+            ByteBuffer in;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + path);
+                in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            try {
+                if (in.getInt() != MAGIC) throw new IOException("Not a student snapshot: " + path);
+                int version = in.getInt();
+                if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+                int count = in.getInt();
+                if (count < 0 || count > in.remaining() / MIN_RECORD) throw corrupt(path, "student count " + count);
+                byte[] scratch = new byte[64];
+                String[] majors = readDictionary(in, scratch, path);
+                String[] courses = readDictionary(in, scratch, path);
+
+                // decode and check everything first: nothing is interned or replaced for a bad file
+                String[] nims = new String[count], names = new String[count];
+                int[] majorRefs = new int[count], ipks = new int[count], courseStart = new int[count + 1];
+                int[] courseRefs = new int[16];
+                for (int i = 0; i < count; i++) {
+                    nims[i] = readString(in, scratch);
+                    names[i] = readString(in, scratch);
+                    majorRefs[i] = readIndex(in, majors.length, path, "major id");
+                    ipks[i] = in.getShort();
+                    if (ipks[i] < 0 || ipks[i] > MAX_IPK) throw corrupt(path, "IPK " + ipks[i] + " for NIM " + nims[i]);
+                    int courseCount = readIndex(in, in.remaining() + 1, path, "course count");
+                    if (courseStart[i] + courseCount > courseRefs.length) {
+                        courseRefs = Arrays.copyOf(courseRefs, Math.max(courseRefs.length * 2, courseStart[i] + courseCount));
+                    }
+                    for (int c = 0; c < courseCount; c++) courseRefs[courseStart[i] + c] = readIndex(in, courses.length, path, "course id");
+                    courseStart[i + 1] = courseStart[i] + courseCount;
+                }
+
+                int[] courseIds = new int[courses.length]; // file id -> Student.COURSES id
+                for (int c = 0; c < courses.length; c++) courseIds[c] = Student.COURSES.idOf(courses[c]);
+                List<Student> students = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Student s = new Student(nims[i], names[i], majors[majorRefs[i]], ipks[i]);
+                    for (int c = courseStart[i]; c < courseStart[i + 1]; c++) s.addCourseId(courseIds[courseRefs[c]]);
+                    students.add(s);
+                }
+                mgr.replaceAll(students);
+                return count;
+            } catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot: " + path, e);
+            }
+        }
+
+        // smallest possible student record: three 1-byte varints, the short IPK, 1-byte course count
+        private static final int MIN_RECORD = 6;
+
+        private static IOException corrupt(Path path, String what)
+        {
+            return new IOException("Corrupt snapshot: " + path + " (bad " + what + ")");
+        }
+
+        // a varint that must lie in [0, bound)
+        private static int readIndex(ByteBuffer in, int bound, Path path, String what) throws IOException
+        {
+            int value = readVarInt(in);
+            if (value < 0 || value >= bound) throw corrupt(path, what + " " + value);
+            return value;
+        }
+
+        private static void writeDictionary(DataOutputStream out, Collection<String> entries) throws IOException
+        {
+            writeVarInt(out, entries.size());
+            for (String entry : entries) writeString(out, entry);
+        }
+
+        private static String[] readDictionary(ByteBuffer in, byte[] scratch, Path path) throws IOException
+        {
+            String[] entries = new String[readIndex(in, in.remaining() + 1, path, "dictionary size")];
+            for (int i = 0; i < entries.length; i++) entries[i] = readString(in, scratch);
+            return entries;
+        }
+
+        static void writeString(DataOutputStream out, String value) throws IOException
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+
+        static String readString(ByteBuffer in, byte[] scratch)
+        {
+            int len = readVarInt(in);
+            if (len < 0 || len > in.remaining()) throw new IllegalArgumentException("bad string length " + len);
+            byte[] buf = len <= scratch.length ? scratch : new byte[len];
+            in.get(buf, 0, len);
+            return new String(buf, 0, len, StandardCharsets.UTF_8);
+        }
+
+        // unsigned LEB128: 7 bits per byte, high bit = more bytes follow
+        static void writeVarInt(DataOutputStream out, int value) throws IOException
+        {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        static int readVarInt(ByteBuffer in)
+        {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+    // ------------------- Write-ahead log -------------------
+    /**
+     * Write-ahead log of inserts, deletes and added courses. Records are
+     * [int length, int crc32, payload]. A flusher thread fsyncs batches; append()
+     * returns a sequence and awaitDurable(seq) waits for it (group commit).
+     */
+    static class WriteAheadLog implements AutoCloseable
+    {
+        static final String DEFAULT_FILE = "students.wal";
+        static final byte INSERT = 1, DELETE = 2, ADD_COURSE = 3;
+        private static final int MAX_BATCH_BYTES = 1 << 20;
+
+        // ByteArrayOutputStream with access to its array, so a batch is written without copying
+        private static class Batch extends ByteArrayOutputStream
+        {
+            Batch() { super(1 << 16); }
+
+            ByteBuffer view() { return ByteBuffer.wrap(buf, 0, count); }
+        }
+
+        private final FileChannel channel;
+        private final long commitWindowMillis;
+        private final Thread flusher;
+        private Batch pending = new Batch();
+        private Batch spare = new Batch();
+        private long appendedSeq; // last sequence handed out
+
+        synchronized long lastAppended() { return appendedSeq; }
+        private long durableSeq;  // last sequence known to be on disk
+        private long syncCount;   // number of fsyncs, for benchmarks
+        private IOException failure;
+        private boolean closed;
+
+        private WriteAheadLog(FileChannel channel, long commitWindowMillis)
+        {
+            this.channel = channel;
+            this.commitWindowMillis = commitWindowMillis;
+            this.flusher = new Thread(this::flushLoop, "wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+
+        static WriteAheadLog open(Path path) throws IOException
+        {
+            return open(path, 0);
+        }
+
+        static WriteAheadLog open(Path path, long commitWindowMillis) throws IOException
+        {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            return new WriteAheadLog(channel, commitWindowMillis);
+        }
+
+        long appendInsert(Student s)
+        {
+            return append(encode(INSERT, s.nim(), s.name, s.major(), s.ipk));
+        }
+
+        long appendDelete(String nim)
+        {
+            return append(encode(DELETE, nim, null, null, -1));
+        }
+
+        long appendCourse(String nim, String course)
+        {
+            return append(encode(ADD_COURSE, nim, course, null, -1));
+        }
+
+        private static byte[] encode(byte type, String a, String b, String c, int ipk)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(type);
+                Snapshot.writeString(out, a);
+                if (b != null) Snapshot.writeString(out, b);
+                if (c != null) Snapshot.writeString(out, c);
+                if (ipk >= 0) out.writeShort(ipk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // in-memory stream, cannot happen
+            }
+            return bytes.toByteArray();
+        }
+
+        // queue one framed record; returns its sequence number for awaitDurable
+        private synchronized long append(byte[] payload)
+        {
+            if (closed) throw new IllegalStateException("write-ahead log is closed");
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            writeInt(pending, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(payload, 0, payload.length);
+            appendedSeq++;
+            // wake the flusher when it has work, and early when the batch is full
+            if (pending.size() == 8 + payload.length || pending.size() >= MAX_BATCH_BYTES) notifyAll();
+            return appendedSeq;
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int value)
+        {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+
+        // wait until the record with this sequence (and all before it) is fsynced
+        synchronized void awaitDurable(long seq)
+        {
+            boolean interrupted = false;
+            while (durableSeq < seq && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (durableSeq < seq) throw new UncheckedIOException("write-ahead log failed", failure);
+        }
+
+        synchronized long syncCount()
+        {
+            return syncCount;
+        }
+
+        private void flushLoop()
+        {
+            try {
+                while (true) {
+                    Batch batch;
+                    long batchSeq;
+                    synchronized (this) {
+                        while (pending.size() == 0 && !closed) wait();
+                        if (pending.size() == 0) return; // closed and drained
+                        long deadline = System.currentTimeMillis() + commitWindowMillis;
+                        long remaining;
+                        while (!closed && pending.size() < MAX_BATCH_BYTES
+                                && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                            wait(remaining);
+                        }
+                        batch = pending;
+                        pending = spare;
+                        batchSeq = appendedSeq;
+                    }
+                    ByteBuffer view = batch.view();
+                    while (view.hasRemaining()) channel.write(view);
+                    channel.force(false);
+                    synchronized (this) {
+                        durableSeq = batchSeq;
+                        syncCount++;
+                        batch.reset();
+                        spare = batch;
+                        notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+            } catch (InterruptedException e) {
+                // daemon thread, nothing to clean up
+            }
+        }
+
+        // drop every record (after a checkpoint); waits for in-flight batches first
+        synchronized void reset() throws IOException
+        {
+            awaitDurable(appendedSeq);
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+            if (failure != null) throw failure;
+        }
+
+        /**
+         * Re-apply every intact record to mgr (without a log attached), truncate a torn
+         * tail, and return the number of records applied.
+         */
+        static long replay(Path path, StudentManager mgr) throws IOException
+        {
+            if (!Files.exists(path)) return 0;
+            long applied = 0, goodBytes = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+                byte[] scratch = new byte[64];
+                while (true) {
+                    int length, crc;
+                    byte[] payload;
+                    try {
+                        length = in.readInt();
+                        crc = in.readInt();
+                        if (length <= 0 || length > MAX_BATCH_BYTES) break;
+                        payload = new byte[length];
+                        in.readFully(payload);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    CRC32 check = new CRC32();
+                    check.update(payload);
+                    if ((int) check.getValue() != crc) break;
+                    try {
+                        apply(ByteBuffer.wrap(payload), mgr, scratch);
+                    } catch (RuntimeException e) {
+                        // the checksum matched, so the record was written like this: report, don't guess
+                        throw new IOException("Corrupt log record #" + (applied + 1) + " in " + path + ": " + e.getMessage(), e);
+                    }
+                    applied++;
+                    goodBytes += 8 + length;
+                }
+            }
+            if (goodBytes < Files.size(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(goodBytes);
+                }
+            }
+            return applied;
+        }
+
+        private static void apply(ByteBuffer in, StudentManager mgr, byte[] scratch) throws IOException
+        {
+            byte type = in.get();
+            String nim = Snapshot.readString(in, scratch);
+            switch (type) {
+                case INSERT: {
+                    String name = Snapshot.readString(in, scratch);
+                    String major = Snapshot.readString(in, scratch);
+                    mgr.insertStudentHundredths(nim, name, major, in.getShort());
+                    break;
+                }
+                case DELETE:
+                    mgr.deleteByNim(nim);
+                    break;
+                case ADD_COURSE:
+                    mgr.addCourseToStudent(nim, Snapshot.readString(in, scratch));
+                    break;
+                default:
+                    throw new IOException("Unknown log record type " + type);
+            }
+        }
+    }
+
+    // ---- Utility: print elapsed nicely ----
+    private static void printElapsed(String label, long nanos) {
+        System.out.printf(">> %s - Waktu Eksekusi: %.3f ms%n", label, nanos / 1_000_000.0);
+    }
+
+    // ---- Simple CLI demo ----
+    public static void main(String[] args) {
+        // Pick the storage: the object store (default), the columnar or the off-heap store
+        String storage = "objects";
+        for (String arg : args) {
+            if (arg.startsWith("--storage=")) storage = arg.substring("--storage=".length());
+        }
+        StudentStore store;
+        switch (storage) {
+            case "objects":
+                store = new StudentManager();
+                break;
+            case "columnar":
+                store = new ColumnarStudentStore();
+                break;
+            case "offheap":
+                store = new OffHeapStudentStore();
+                break;
+            default:
+                System.out.println(">> ERROR: Unknown storage '" + storage + "' (objects, columnar, offheap).");
+                return;
+        }
+        // log, snapshots and the extra queries need the object store
+        StudentManager mgr = store instanceof StudentManager ? (StudentManager) store : null;
+        WeightedGraph majorGraph = new WeightedGraph();
+
+        // Sample weighted graph
+        majorGraph.addEdge("Informatika", "Sistem Informasi", 4);
+        majorGraph.addEdge("Informatika", "Teknik Elektro", 6);
+        majorGraph.addEdge("Sistem Informasi", "Manajemen", 5);
+        majorGraph.addEdge("Teknik Elektro", "Fisika", 3);
+        majorGraph.addEdge("Fisika", "Manajemen", 10);
+
+        // Recover: last checkpoint snapshot + everything logged after it
+        Path snapshotPath = Paths.get(Snapshot.DEFAULT_FILE);
+        Path logPath = Paths.get(WriteAheadLog.DEFAULT_FILE);
+        long replayed = 0;
+        if (mgr != null) {
+            try {
+                if (Files.exists(snapshotPath)) Snapshot.loadInto(mgr, snapshotPath);
+                replayed = WriteAheadLog.replay(logPath, mgr);
+                mgr.attachLog(WriteAheadLog.open(logPath));
+            } catch (IOException e) {
+                System.out.println(">> ERROR: Recovery failed, running without a log -> " + e.getMessage());
+            }
+        }
+
+        // Welcome message
+        System.out.println("==============================================");
+        System.out.println("Sistem Manajemen Mahasiswa");
+        if (mgr == null) {
+            System.out.println("Penyimpanan " + storage + ": hanya di memori, tanpa log dan snapshot.");
+        } else if (mgr.totalStudents() == 0) {
+            System.out.println("Database saat ini kosong.");
+        } else {
+            System.out.println("Database dipulihkan: " + mgr.totalStudents() + " mahasiswa ("
+                    + replayed + " entri log diputar ulang).");
+        }
+        System.out.println("==============================================");
+
+        // Directly start the interactive menu for user input
+        interactiveMenu(store, majorGraph);
+        if (mgr == null) return;
+        try {
+            mgr.closeLog();
+        } catch (IOException e) {
+            System.out.println(">> ERROR: Cannot close log -> " + e.getMessage());
+        }
+    }
+
+    // menu options that only the object store (StudentManager) supports
+    private static final Set<Integer> OBJECT_STORE_ONLY = Set.of(6, 12, 13, 14, 15, 16, 17, 18);
+
+    private static void interactiveMenu(StudentStore store, WeightedGraph majorGraph) 
+    {
+        StudentManager mgr = store instanceof StudentManager ? (StudentManager) store : null;
+        Scanner sc = new Scanner(System.in);
+        FileTailer tailer = null;
+
+        while (true) {
+            // report rows the follower imported since the last command
+            if (tailer != null) {
+                ImportResult appended = tailer.takeReport();
+                if (appended != null) {
+                    System.out.println("\n>> [follow " + tailer.file().getFileName() + "] new rows:");
+                    appended.print(System.out);
+                }
+            }
+
+            System.out.println("\n=== Sistem Manajemen Mahasiswa ===");
+            System.out.println("1. Tambah Mahasiswa");
+            System.out.println("2. Cari Mahasiswa by NIM");
+            System.out.println("3. Cari Mahasiswa by IPK");
+            System.out.println("4. Hapus Mahasiswa by NIM");
+            System.out.println("5. List Semua Mahasiswa (IPK Asc)");
+            System.out.println("6. Impor Data Mahasiswa dari .txt File");
+            System.out.println("7. Tambah Mata Kuliah ke Mahasiswa");
+            System.out.println("8. Lihat Graph Jurusan");
+            System.out.println("9. BFS Graph Jurusan");
+            System.out.println("10. Shortest Path antar jurusan (Dijkstra)");
+            System.out.println("11. Cari Mahasiswa by rentang IPK");
+            System.out.println("12. Impor Data Mahasiswa dari .txt File (bulk load)");
+            System.out.println(tailer == null ? "13. Ikuti .txt File (impor baris baru otomatis)"
+                                              : "13. Berhenti mengikuti " + tailer.file().getFileName());
+            System.out.println("14. Simpan snapshot database");
+            System.out.println("15. Muat snapshot database");
+            System.out.println("16. Cari mahasiswa berdasarkan mata kuliah");
+            System.out.println("17. Peringkat mahasiswa per jurusan");
+            System.out.println("18. Peringkat & persentil IPK");
+            System.out.println("0. Exit");
+            System.out.print("Pilih: ");
+            System.out.print("Choice> ");
+            String line = sc.nextLine().trim();
+            if (line.isEmpty()) continue;
+            int choice;
+            try {
+                choice = Integer.parseInt(line);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a valid number.");
+                continue;
+            }
+            if (mgr == null && OBJECT_STORE_ONLY.contains(choice)) {
+                System.out.println(">> Opsi ini hanya tersedia pada penyimpanan objek (--storage=objects).");
+                continue;
+            }
+
+            switch (choice) {
+                case 0:
+                    System.out.println("Exit.");
+                    if (tailer != null) {
+                        try {
+                            tailer.close();
+                        } catch (IOException ignored) {
+                            // exiting anyway
+                        }
+                    }
+                    sc.close();
+                    return;
+                case 1: {
+                    // Add student (time only the processing, not input)
+                    System.out.print("NIM: "); String nim = sc.nextLine();
+                    System.out.print("Name: "); String name = sc.nextLine();
+                    System.out.print("Jurusan: "); String major = sc.nextLine();
+                    System.out.print("IPK: ");
+                    int ipk = parseIpk(sc.nextLine());
+                    if (ipk < 0) {
+                        System.out.println(">> ERROR: Invalid IPK format. Please use a number from 0.00 to 4.00 (e.g., 3.75).");
+                        break;
+                    }
+                    long t0 = System.nanoTime();
+                    boolean ok = store.insertStudentHundredths(nim, name, major, ipk);
+                    long t1 = System.nanoTime();
+                    System.out.println(ok ? ">> Inserted successfully." : ">> ERROR: NIM already exists.");
+                    printElapsed("Insert", t1 - t0);
+                    break;
+                }
+                case 2: {
+                    // Search by NIM
+                    System.out.print("NIM to search: "); String q = sc.nextLine().trim();
+                    long t0 = System.nanoTime();
+                    Student s = store.searchByNim(q);
+                    long t1 = System.nanoTime();
+                    System.out.println(s == null ? ">> Not found." : ">> Found: " + s);
+                    printElapsed("Search by NIM", t1 - t0);
+                    break;
+                }
+                case 3: {
+                   // Search by IPK
+                    System.out.print("IPK to search: ");
+                    double ipkNeedToSearch;
+                    try {
+                        ipkNeedToSearch = Double.parseDouble(sc.nextLine().trim());
+                    } catch (NumberFormatException e) {
+                        System.out.println(">> ERROR: Invalid IPK format. Please use a number (e.g., 3.75).");
+                        break;
+                    }
+                    // collected under the read lock, printed after it is released
+                    long t0 = System.nanoTime();
+                    List<Student> found = store.searchByIpk(ipkNeedToSearch);
+                    long t1 = System.nanoTime();
+                    found.forEach(System.out::println);
+                    if (found.isEmpty()) {
+                        System.out.println(">> No student found with that IPK.");
+                    } else {
+                        System.out.println(">> Found " + found.size() + " student(s).");
+                    }
+                    printElapsed("Search by IPK", t1 - t0);
+                    break;
+                }
+                case 4: {
+                    // Delete by NIM
+                    System.out.print("NIM to delete: "); String d = sc.nextLine().trim();
+                    long t0 = System.nanoTime();
+                    boolean removed = store.deleteByNim(d);
+                    long t1 = System.nanoTime();
+                    System.out.println(removed ? ">> Deleted successfully." : ">> ERROR: NIM not found.");
+                    printElapsed("Delete by NIM", t1 - t0);
+                    break;
+                }
+
+                case 5: {
+                    // List all (measure traversal only, not printing)
+                    System.out.println("--- All students (ordered by IPK ascending) ---");
+                    long t0 = System.nanoTime();
+                    // streamed straight from the index: no copy of the whole database
+                    int listed = 0;
+                    try {
+                        for (Iterator<Student> it = store.searchByIpkRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY); it.hasNext(); listed++) {
+                            System.out.println(it.next());
+                        }
+                    } catch (ConcurrentModificationException e) {
+                        System.out.println(">> Listing stopped: " + e.getMessage());
+                    }
+                    long t1 = System.nanoTime();
+                    if (listed == 0) System.out.println(">> Database is empty.");
+                    printElapsed("List (streamed inorder, incl. printing)", t1 - t0);
+                    break;
+                }
+
+                case 6: {
+                    // Batch upload (measure file read + processing)
+                    System.out.print("Enter .txt file path (e.g., data.txt): ");
+                    String filePath = sc.nextLine().trim();
+                    ImportResult result = mgr.batchUploadFromFile(filePath);
+                    result.print(System.out);
+                    System.out.println(">> Total students now: " + mgr.totalStudents());
+                    printElapsed("Batch upload", result.elapsedNanos);
+                    break;
+                }
+
+                case 7: {
+                    // input mata kuliah to student data
+                    System.out.print("NIM: ");
+                    String nimC = sc.nextLine();
+                    System.out.print("Nama Mata Kuliah: ");
+                    String course = sc.nextLine();
+                    System.out.println(store.addCourseToStudent(nimC, course)
+                            ? "Mata kuliah ditambahkan."
+                            : "Mahasiswa tidak ditemukan.");
+                }
+
+                case 8: {
+                    majorGraph.printGraph();
+                    break;
+                }
+
+                case 9 : {
+                    System.out.print("Mulai BFS dari jurusan: ");
+                    String start = sc.nextLine();
+                    List<String> bfs = majorGraph.bfs(start);
+                    System.out.println(bfs.isEmpty() ? "Tidak ditemukan" : String.join(" -> ", bfs));
+                    break;
+                }
+                case 10 : {
+                    System.out.print("Dari: ");
+                    String from = sc.nextLine();
+                    System.out.print("Ke: ");
+                    String to = sc.nextLine();
+                    PathResult result = majorGraph.shortestPath(from, to);
+                    if (result.totalWeight == -1) {
+                        System.out.println("Tidak ada jalur");
+                    } else {
+                        System.out.println("Jalur terpendek: " + String.join(" -> ", result.path));
+                        System.out.println("Total bobot: " + result.totalWeight);
+                    }
+                    break;
+                }                
+                case 11: {
+                    // Range search; empty input means open-ended bound
+                    double minIpk, maxIpk;
+                    try {
+                        System.out.print("IPK minimum (kosong = tanpa batas): ");
+                        String minLine = sc.nextLine().trim();
+                        System.out.print("IPK maksimum (kosong = tanpa batas): ");
+                        String maxLine = sc.nextLine().trim();
+                        minIpk = minLine.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(minLine);
+                        maxIpk = maxLine.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(maxLine);
+                        if (Double.isNaN(minIpk) || Double.isNaN(maxIpk)) throw new NumberFormatException("NaN");
+                    } catch (NumberFormatException e) {
+                        System.out.println(">> ERROR: Invalid IPK format. Please use a number (e.g., 3.75).");
+                        break;
+                    }
+                    // collected under the read lock, so a followed file cannot change it mid-listing
+                    long t0 = System.nanoTime();
+                    List<Student> found = new ArrayList<>();
+                    if (mgr != null) mgr.forEachInIpkRange(minIpk, maxIpk, found::add);
+                    else store.searchByIpkRange(minIpk, maxIpk).forEachRemaining(found::add);
+                    long t1 = System.nanoTime();
+                    found.forEach(System.out::println);
+                    System.out.println(found.isEmpty() ? ">> No student found in that range." : ">> Found " + found.size() + " student(s).");
+                    printElapsed("Range search by IPK", t1 - t0);
+                    break;
+                }
+                case 12: {
+                    // Bulk load (measure file read + one-shot index build)
+                    System.out.print("Enter .txt file path (e.g., data.txt): ");
+                    String filePath = sc.nextLine().trim();
+                    ImportResult result = mgr.bulkLoadFromFile(filePath);
+                    result.print(System.out);
+                    System.out.println(">> Total students now: " + mgr.totalStudents());
+                    printElapsed("Bulk load", result.elapsedNanos);
+                    break;
+                }
+                case 13: {
+                    // Follow (tail) a growing file, or stop following it
+                    if (tailer != null) {
+                        try {
+                            tailer.close();
+                        } catch (IOException e) {
+                            System.out.println(">> ERROR: " + e.getMessage());
+                        }
+                        System.out.println(">> Stopped following " + tailer.file() + " at byte " + tailer.offset() + ".");
+                        tailer = null;
+                        break;
+                    }
+                    System.out.print("Enter .txt file path to follow (e.g., data.txt): ");
+                    String filePath = sc.nextLine().trim();
+                    System.out.print("Impor juga isi yang sudah ada? (y/n): ");
+                    boolean fromStart = sc.nextLine().trim().equalsIgnoreCase("y");
+                    try {
+                        tailer = new FileTailer(Paths.get(filePath), fromStart, mgr);
+                        System.out.println(">> Following " + tailer.file() + " from byte " + tailer.offset() + ".");
+                    } catch (IOException e) {
+                        System.out.println(">> ERROR: File not found or cannot be read -> " + filePath);
+                    }
+                    break;
+                }
+                case 14: {
+                    System.out.print("Snapshot file (kosong = " + Snapshot.DEFAULT_FILE + "): ");
+                    String filePath = sc.nextLine().trim();
+                    Path path = Paths.get(filePath.isEmpty() ? Snapshot.DEFAULT_FILE : filePath);
+                    long t0 = System.nanoTime();
+                    try {
+                        // the recovery snapshot doubles as a checkpoint that empties the log
+                        if (path.equals(Paths.get(Snapshot.DEFAULT_FILE))) mgr.checkpoint(path);
+                        else Snapshot.save(mgr, path);
+                        long t1 = System.nanoTime();
+                        System.out.println(">> Saved " + mgr.totalStudents() + " student(s) to " + path
+                                + " (" + Files.size(path) + " bytes).");
+                        printElapsed("Save snapshot", t1 - t0);
+                    } catch (IOException e) {
+                        System.out.println(">> ERROR: Cannot write snapshot -> " + e.getMessage());
+                    }
+                    break;
+                }
+                case 15: {
+                    System.out.print("Snapshot file (kosong = " + Snapshot.DEFAULT_FILE + "): ");
+                    String filePath = sc.nextLine().trim();
+                    Path path = Paths.get(filePath.isEmpty() ? Snapshot.DEFAULT_FILE : filePath);
+                    long t0 = System.nanoTime();
+                    try {
+                        int loaded = Snapshot.loadInto(mgr, path);
+                        // the loaded state becomes the new recovery point
+                        mgr.checkpoint(Paths.get(Snapshot.DEFAULT_FILE));
+                        long t1 = System.nanoTime();
+                        System.out.println(">> Loaded " + loaded + " student(s) from " + path + ".");
+                        printElapsed("Load snapshot", t1 - t0);
+                    } catch (IOException e) {
+                        System.out.println(">> ERROR: Cannot read snapshot -> " + e.getMessage());
+                    }
+                    break;
+                }
+                case 16: {
+                    // students taking all listed courses (course index intersection)
+                    System.out.print("Mata kuliah (pisahkan dengan koma): ");
+                    String[] courses = Arrays.stream(sc.nextLine().split(","))
+                            .map(String::trim).filter(c -> !c.isEmpty()).toArray(String[]::new);
+                    if (courses.length == 0) {
+                        System.out.println(">> ERROR: No course given.");
+                        break;
+                    }
+                    long t0 = System.nanoTime();
+                    List<Student> taking = mgr.searchByAllCourses(courses);
+                    long t1 = System.nanoTime();
+                    if (taking.isEmpty()) {
+                        System.out.println(">> No student takes " + String.join(" + ", courses) + ".");
+                    } else {
+                        System.out.println(">> Found " + taking.size() + " student(s):");
+                        taking.forEach(System.out::println);
+                    }
+                    printElapsed("Search by course", t1 - t0);
+                    break;
+                }
+                case 17: {
+                    // top students of one major, from the per-major IPK index
+                    System.out.print("Jurusan: ");
+                    String major = sc.nextLine().trim();
+                    System.out.print("Jumlah (kosong = 10): ");
+                    String countLine = sc.nextLine().trim();
+                    int k;
+                    try {
+                        k = countLine.isEmpty() ? 10 : Integer.parseInt(countLine);
+                    } catch (NumberFormatException e) {
+                        System.out.println(">> ERROR: Invalid number.");
+                        break;
+                    }
+                    long t0 = System.nanoTime();
+                    List<Student> top = mgr.topStudentsInMajor(major, k);
+                    int total = mgr.countByMajor(major);
+                    long t1 = System.nanoTime();
+                    if (top.isEmpty()) {
+                        System.out.println(">> No student in " + major + ".");
+                    } else {
+                        System.out.println(">> " + major + ": " + total + " student(s), top " + top.size() + ":");
+                        for (int i = 0; i < top.size(); i++) System.out.println((i + 1) + ". " + top.get(i));
+                    }
+                    printElapsed("Ranking by major", t1 - t0);
+                    break;
+                }
+                case 18: {
+                    // order statistics: top 10, median / P90 and optionally one student's rank
+                    System.out.print("NIM (kosong = lewati): ");
+                    String nim = sc.nextLine().trim();
+                    long t0 = System.nanoTime();
+                    List<Student> top = mgr.topByIpk(10);
+                    double median = mgr.totalStudents() == 0 ? Double.NaN : mgr.medianIpk();
+                    double p90 = mgr.totalStudents() == 0 ? Double.NaN : mgr.percentileIpk(90);
+                    int rank = nim.isEmpty() ? 0 : mgr.rankOfNim(nim);
+                    long t1 = System.nanoTime();
+                    if (top.isEmpty()) {
+                        System.out.println(">> Database is empty.");
+                        break;
+                    }
+                    System.out.println(">> Top " + top.size() + " by IPK:");
+                    for (int i = 0; i < top.size(); i++) System.out.println((i + 1) + ". " + top.get(i));
+                    System.out.printf(">> Median IPK: %.2f | P90 IPK: %.2f%n", median, p90);
+                    if (!nim.isEmpty()) {
+                        System.out.println(rank == 0 ? ">> Student not found." : ">> Rank of " + nim + ": " + rank + " of " + mgr.totalStudents());
+                    }
+                    printElapsed("Rank / percentile queries", t1 - t0);
+                    break;
+                }
+                default:
+                    System.out.println(">> Unknown option.");
+            }
+        }
+    }
+}